@@ -0,0 +1,62 @@
+package org.pulsar.currency.benchmark;
+
+import org.pulsar.currency.model.Currency;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Deterministic set of currencies and rates shaped like production data:
+ * every currency is quoted against USD and a few pairs are quoted directly.
+ */
+public final class BenchmarkData {
+
+    public static final String[] CODES = {
+            "USD", "EUR", "GBP", "JPY", "CHF", "CNY", "RUB", "AUD", "CAD", "SEK",
+            "NOK", "DKK", "PLN", "CZK", "HUF", "TRY", "INR", "BRL", "MXN", "ZAR",
+            "SGD", "HKD", "KRW", "NZD", "ILS", "AED", "SAR", "THB", "IDR", "KZT"
+    };
+
+    private BenchmarkData() {}
+
+    public static List<Currency> currencies() {
+        List<Currency> currencies = new ArrayList<>();
+        for (String code : CODES) {
+            currencies.add(Currency.builder()
+                    .id(UUID.nameUUIDFromBytes(code.getBytes()))
+                    .code(code)
+                    .fullName("Currency " + code)
+                    .sign(code.substring(0, 1))
+                    .build());
+        }
+        return currencies;
+    }
+
+    public static List<ExchangeRate> exchangeRates(List<Currency> currencies) {
+        Random random = new Random(42);
+        List<ExchangeRate> exchangeRates = new ArrayList<>();
+        Currency usd = currencies.getFirst();
+
+        for (Currency currency : currencies.subList(1, currencies.size())) {
+            exchangeRates.add(rate(usd, currency, random));
+        }
+        // a couple of directly quoted crosses, EUR -> GBP is the "direct" benchmark pair
+        exchangeRates.add(rate(currencies.get(1), currencies.get(2), random));
+        exchangeRates.add(rate(currencies.get(1), currencies.get(4), random));
+        return exchangeRates;
+    }
+
+    private static ExchangeRate rate(Currency base, Currency target, Random random) {
+        BigDecimal rate = BigDecimal.valueOf(1 + random.nextInt(150_000_000), 6);
+        return ExchangeRate.builder()
+                .id(UUID.randomUUID())
+                .baseCurrency(base)
+                .targetCurrency(target)
+                .rate(rate)
+                .build();
+    }
+}
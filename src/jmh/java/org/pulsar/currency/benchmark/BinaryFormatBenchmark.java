@@ -0,0 +1,88 @@
+package org.pulsar.currency.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.dto.exchange.ExchangeRateResponse;
+import org.pulsar.currency.mapper.CurrencyMapper;
+import org.pulsar.currency.mapper.ExchangeRateMapper;
+import org.pulsar.currency.model.ExchangeRate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code GET /exchangeRates} list in each of the negotiated formats: time to encode and decode it,
+ * and the payload size, reported as the {@code bytes} secondary result of {@code encode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"30", "1000"})
+    public int size;
+
+    private ObjectMapper mapper;
+    private List<ExchangeRateResponse> exchangeRates;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        mapper = switch (format) {
+            case "json" -> new ObjectMapper();
+            case "cbor" -> new CBORMapper();
+            case "smile" -> new SmileMapper();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+
+        ExchangeRateMapper exchangeRateMapper = new ExchangeRateMapper(new CurrencyMapper());
+        List<ExchangeRate> data = BenchmarkData.exchangeRates(BenchmarkData.currencies());
+        exchangeRates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            exchangeRates.add(exchangeRateMapper.mapToResponse(data.get(i % data.size())));
+        }
+        payload = mapper.writeValueAsBytes(exchangeRates);
+    }
+
+    @Benchmark
+    public byte[] encode(PayloadSize payloadSize) {
+        byte[] encoded = mapper.writeValueAsBytes(exchangeRates);
+        payloadSize.bytes = encoded.length;
+        return encoded;
+    }
+
+    @Benchmark
+    public ExchangeRateResponse[] decode() {
+        return mapper.readValue(payload, ExchangeRateResponse[].class);
+    }
+
+    /**
+     * Reported as is rather than per second, the value is the size of the last encoded payload.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long bytes;
+    }
+}
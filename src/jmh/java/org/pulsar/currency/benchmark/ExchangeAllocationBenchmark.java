@@ -0,0 +1,141 @@
+package org.pulsar.currency.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.cache.ExchangeRateCache;
+import org.pulsar.currency.cache.NegativeCache;
+import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.engine.CrossRate;
+import org.pulsar.currency.engine.CrossRateEngine;
+import org.pulsar.currency.mapper.CurrencyMapper;
+import org.pulsar.currency.mapper.ExchangeRateMapper;
+import org.pulsar.currency.service.DataVersion;
+import org.pulsar.currency.service.ExchangeRateService;
+import org.pulsar.currency.validation.ExchangeCreateUpdateValidator;
+import org.pulsar.currency.validation.ExchangeRequestValidator;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation of one conversion on the cached engine, to be run with the GC profiler:
+ * {@code ./gradlew jmh -Pjmh.includes=ExchangeAllocationBenchmark -Pjmh.args="-prof gc"}
+ * and compared on {@code gc.alloc.rate.norm}. {@code fixedPoint} is {@link ExchangeRateService#exchange},
+ * which only allocates the response and its two amounts. {@code bigDecimal} repeats the previous
+ * path: the amount parsed twice, {@code BigDecimal} multiplication and the responses built and mapped per call.
+ * Both paths must convert to the same amount, the setup fails otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeAllocationBenchmark {
+
+    private ExchangeRateService exchangeRateService;
+    private ExchangeRateCache exchangeRateCache;
+    private CrossRateEngine crossRateEngine;
+    private CurrencyMapper currencyMapper;
+    private ExchangeRequestValidator exchangeRequestValidator;
+
+    private final ExchangeRequest direct = request("EUR", "GBP");
+    private final ExchangeRequest triangulated = request("JPY", "RUB");
+
+    @Setup
+    public void setUp() {
+        InMemoryExchangeRateDao exchangeRateDao = new InMemoryExchangeRateDao(
+                BenchmarkData.exchangeRates(BenchmarkData.currencies()));
+        currencyMapper = new CurrencyMapper();
+        crossRateEngine = new CrossRateEngine(List.of("USD", "EUR"));
+        exchangeRequestValidator = new ExchangeRequestValidator();
+
+        exchangeRateCache = new ExchangeRateCache(exchangeRateDao);
+        exchangeRateCache.addListener(crossRateEngine);
+        exchangeRateCache.reload();
+
+        DataVersion dataVersion = new DataVersion();
+        exchangeRateService = new ExchangeRateService(exchangeRateDao,
+                exchangeRateCache,
+                crossRateEngine,
+                new ExchangeRateMapper(currencyMapper),
+                currencyMapper,
+                new ExchangeCreateUpdateValidator(),
+                exchangeRequestValidator,
+                dataVersion,
+                null,
+                new NegativeCache("benchmark", dataVersion, Duration.ofSeconds(30), 10_000));
+
+        for (ExchangeRequest exchangeRequest : List.of(direct, triangulated)) {
+            BigDecimal fixedPoint = exchangeRateService.exchange(exchangeRequest).convertedAmount();
+            BigDecimal bigDecimal = bigDecimal(exchangeRequest).convertedAmount();
+            if (!fixedPoint.equals(bigDecimal)) {
+                throw new IllegalStateException("Fixed point gives %s instead of %s for %s"
+                        .formatted(fixedPoint, bigDecimal, exchangeRequest));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        exchangeRateCache.close();
+    }
+
+    @Benchmark
+    public ExchangeResponse fixedPointDirect() {
+        return exchangeRateService.exchange(direct);
+    }
+
+    @Benchmark
+    public ExchangeResponse fixedPointTriangulated() {
+        return exchangeRateService.exchange(triangulated);
+    }
+
+    @Benchmark
+    public ExchangeResponse bigDecimalDirect() {
+        return bigDecimal(direct);
+    }
+
+    @Benchmark
+    public ExchangeResponse bigDecimalTriangulated() {
+        return bigDecimal(triangulated);
+    }
+
+    private ExchangeResponse bigDecimal(ExchangeRequest exchangeRequest) {
+        new BigDecimal(exchangeRequest.amount());
+        if (!exchangeRequestValidator.validate(exchangeRequest).isValid()) {
+            throw new IllegalArgumentException();
+        }
+        BigDecimal amount = new BigDecimal(exchangeRequest.amount());
+        CrossRate crossRate = crossRateEngine.find(exchangeRequest.baseCurrencyCode(), exchangeRequest.targetCurrencyCode())
+                .orElseThrow();
+
+        return ExchangeResponse.builder()
+                .baseCurrency(currencyMapper.mapToResponse(crossRate.baseCurrency()))
+                .targetCurrency(currencyMapper.mapToResponse(crossRate.targetCurrency()))
+                .rate(crossRate.rate())
+                .amount(amount)
+                .convertedAmount(crossRate.rate().multiply(amount))
+                .build();
+    }
+
+    private static ExchangeRequest request(String from, String to) {
+        return ExchangeRequest.builder()
+                .baseCurrencyCode(from)
+                .targetCurrencyCode(to)
+                .amount("1234.56")
+                .build();
+    }
+}
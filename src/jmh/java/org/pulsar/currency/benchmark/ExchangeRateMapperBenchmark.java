@@ -0,0 +1,41 @@
+package org.pulsar.currency.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.dto.exchange.ExchangeRateResponse;
+import org.pulsar.currency.mapper.CurrencyMapper;
+import org.pulsar.currency.mapper.ExchangeRateMapper;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRateMapperBenchmark {
+
+    private ExchangeRateMapper exchangeRateMapper;
+    private ExchangeRate exchangeRate;
+
+    @Setup
+    public void setUp() {
+        exchangeRateMapper = new ExchangeRateMapper(new CurrencyMapper());
+        exchangeRate = BenchmarkData.exchangeRates(BenchmarkData.currencies()).getFirst();
+    }
+
+    @Benchmark
+    public ExchangeRateResponse mapToResponse() {
+        return exchangeRateMapper.mapToResponse(exchangeRate);
+    }
+}
@@ -0,0 +1,43 @@
+package org.pulsar.currency.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.controller.exchange.ExchangeRateRequestParser;
+import org.pulsar.currency.controller.exchange.ExchangeRateRequestParser.CodePair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * URI and body parsing done by {@code ExchangeRateController} for GET and PATCH requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRateRequestParserBenchmark {
+
+    private final ExchangeRateRequestParser parser = new ExchangeRateRequestParser();
+    private final String uri = "/exchangeRate/USDEUR";
+    private final byte[] body = "rate=0.912345".getBytes(StandardCharsets.UTF_8);
+
+    @Benchmark
+    public CodePair parseCodes() {
+        return parser.parseCodes(uri);
+    }
+
+    @Benchmark
+    public Map<String, String> parseForm() {
+        return parser.parseForm(body);
+    }
+}
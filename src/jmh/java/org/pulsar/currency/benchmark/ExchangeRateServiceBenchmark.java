@@ -0,0 +1,106 @@
+package org.pulsar.currency.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.cache.ExchangeRateCache;
+import org.pulsar.currency.cache.NegativeCache;
+import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.engine.CrossRateEngine;
+import org.pulsar.currency.mapper.CurrencyMapper;
+import org.pulsar.currency.mapper.ExchangeRateMapper;
+import org.pulsar.currency.service.DataVersion;
+import org.pulsar.currency.service.ExchangeRateService;
+import org.pulsar.currency.validation.ExchangeCreateUpdateValidator;
+import org.pulsar.currency.validation.ExchangeRequestValidator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExchangeRateService#exchange} for each kind of path, with the cached cross-rate
+ * engine ({@code cached = true}) and with the rates fetched through the DAO on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRateServiceBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private ExchangeRateService exchangeRateService;
+    private ExchangeRateCache exchangeRateCache;
+
+    private final ExchangeRequest direct = request("EUR", "GBP");
+    private final ExchangeRequest reverse = request("GBP", "EUR");
+    private final ExchangeRequest triangulated = request("JPY", "RUB");
+
+    @Setup
+    public void setUp() {
+        InMemoryExchangeRateDao exchangeRateDao = new InMemoryExchangeRateDao(
+                BenchmarkData.exchangeRates(BenchmarkData.currencies()));
+        CurrencyMapper currencyMapper = new CurrencyMapper();
+        CrossRateEngine crossRateEngine = new CrossRateEngine(List.of("USD", "EUR"));
+
+        exchangeRateCache = new ExchangeRateCache(exchangeRateDao);
+        exchangeRateCache.addListener(crossRateEngine);
+        if (cached) {
+            exchangeRateCache.reload();
+        }
+
+        DataVersion dataVersion = new DataVersion();
+        exchangeRateService = new ExchangeRateService(exchangeRateDao,
+                exchangeRateCache,
+                crossRateEngine,
+                new ExchangeRateMapper(currencyMapper),
+                currencyMapper,
+                new ExchangeCreateUpdateValidator(),
+                new ExchangeRequestValidator(),
+                dataVersion,
+                null,
+                new NegativeCache("benchmark", dataVersion, Duration.ofSeconds(30), 10_000));
+    }
+
+    @TearDown
+    public void tearDown() {
+        exchangeRateCache.close();
+    }
+
+    @Benchmark
+    public ExchangeResponse direct() {
+        return exchangeRateService.exchange(direct);
+    }
+
+    @Benchmark
+    public ExchangeResponse reverse() {
+        return exchangeRateService.exchange(reverse);
+    }
+
+    @Benchmark
+    public ExchangeResponse triangulated() {
+        return exchangeRateService.exchange(triangulated);
+    }
+
+    private static ExchangeRequest request(String from, String to) {
+        return ExchangeRequest.builder()
+                .baseCurrencyCode(from)
+                .targetCurrencyCode(to)
+                .amount("1234.56")
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package org.pulsar.currency.benchmark;
+
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stand-in for {@link ExchangeRateDao} that keeps the rates in memory, so that
+ * benchmarks measure the application code and run without a database.
+ */
+public class InMemoryExchangeRateDao extends ExchangeRateDao {
+
+    private final List<ExchangeRate> exchangeRates = new CopyOnWriteArrayList<>();
+    private final Map<String, ExchangeRate> byCodes = new ConcurrentHashMap<>();
+
+    public InMemoryExchangeRateDao(List<ExchangeRate> exchangeRates) {
+        super(null);
+        exchangeRates.forEach(this::put);
+    }
+
+    @Override
+    public List<ExchangeRate> findAll() {
+        return List.copyOf(exchangeRates);
+    }
+
+    @Override
+    public Optional<ExchangeRate> findByCodes(String baseCode, String targetCode) {
+        return Optional.ofNullable(byCodes.get(baseCode + targetCode));
+    }
+
+    @Override
+    public List<ExchangeRate> findCandidates(String baseCode, String targetCode, List<String> pivotCodes) {
+        Set<String> ends = Set.of(baseCode, targetCode);
+        Set<String> others = Stream.concat(ends.stream(), pivotCodes.stream()).collect(Collectors.toSet());
+
+        return exchangeRates.stream()
+                .filter(rate -> {
+                    String base = rate.getBaseCurrency().getCode();
+                    String target = rate.getTargetCurrency().getCode();
+                    return ends.contains(base) && others.contains(target)
+                            || ends.contains(target) && others.contains(base);
+                })
+                .toList();
+    }
+
+    @Override
+    public ExchangeRate save(ExchangeRate exchangeRate) {
+        put(exchangeRate);
+        return exchangeRate;
+    }
+
+    @Override
+    public Optional<ExchangeRate> update(ExchangeRate exchangeRate) {
+        String key = exchangeRate.getBaseCurrency().getCode() + exchangeRate.getTargetCurrency().getCode();
+        if (!byCodes.containsKey(key)) {
+            return Optional.empty();
+        }
+        put(exchangeRate);
+        return Optional.of(exchangeRate);
+    }
+
+    private void put(ExchangeRate exchangeRate) {
+        String key = exchangeRate.getBaseCurrency().getCode() + exchangeRate.getTargetCurrency().getCode();
+        ExchangeRate previous = byCodes.put(key, exchangeRate);
+        if (previous != null) {
+            exchangeRates.remove(previous);
+        }
+        exchangeRates.add(exchangeRate);
+    }
+}
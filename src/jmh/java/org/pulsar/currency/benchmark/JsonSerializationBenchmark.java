@@ -0,0 +1,77 @@
+package org.pulsar.currency.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.dto.exchange.ExchangeRateResponse;
+import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.mapper.CurrencyMapper;
+import org.pulsar.currency.mapper.ExchangeRateMapper;
+import org.pulsar.currency.model.ExchangeRate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response bodies, {@code size} is the length of the
+ * {@code GET /exchangeRates} list (the base data set is repeated to reach it).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"30", "1000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ExchangeResponse exchangeResponse;
+    private List<ExchangeRateResponse> exchangeRates;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        CurrencyMapper currencyMapper = new CurrencyMapper();
+        ExchangeRateMapper exchangeRateMapper = new ExchangeRateMapper(currencyMapper);
+        List<ExchangeRate> data = BenchmarkData.exchangeRates(BenchmarkData.currencies());
+
+        exchangeRates = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            exchangeRates.add(exchangeRateMapper.mapToResponse(data.get(i % data.size())));
+        }
+
+        ExchangeRate exchangeRate = data.getFirst();
+        BigDecimal amount = new BigDecimal("1234.56");
+        exchangeResponse = ExchangeResponse.builder()
+                .baseCurrency(currencyMapper.mapToResponse(exchangeRate.getBaseCurrency()))
+                .targetCurrency(currencyMapper.mapToResponse(exchangeRate.getTargetCurrency()))
+                .rate(exchangeRate.getRate())
+                .amount(amount)
+                .convertedAmount(exchangeRate.getRate().multiply(amount))
+                .build();
+    }
+
+    @Benchmark
+    public byte[] exchangeResponse() {
+        return objectMapper.writeValueAsBytes(exchangeResponse);
+    }
+
+    @Benchmark
+    public byte[] exchangeRates() {
+        return objectMapper.writeValueAsBytes(exchangeRates);
+    }
+}
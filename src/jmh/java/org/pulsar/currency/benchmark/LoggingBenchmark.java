@@ -0,0 +1,123 @@
+package org.pulsar.currency.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.util.LogSampler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost of one DAO lookup as seen by the request thread, with the file pattern of {@code logback.xml}.
+ * {@code sync/info} is the previous setup: two INFO lines per call written under the appender lock.
+ * {@code async/sampled} is the production one: DEBUG lines that are filtered out by level and a sampled
+ * INFO line handed to a bounded queue. Runs with several threads, as contention on the appender is part of the cost.
+ * <p>
+ * The async appender blocks when its queue is full and discards nothing, unlike production's {@code neverBlock}:
+ * every event is written, so a call can't look cheap because its event was dropped. The numbers are an upper
+ * bound of what a request pays in production, where it drops events instead of waiting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final String PATTERN = "%d{yyyy-MM-dd HH:mm:ss.SSS} ▶ %-5level [%thread] %logger{30} -- %msg%n%ex{full}";
+
+    @Param({"sync", "async"})
+    public String appender;
+
+    @Param({"info", "sampled"})
+    public String hotPath;
+
+    private LoggerContext context;
+    private Logger log;
+    private LogSampler sampler;
+    private boolean sampled;
+    private Path file;
+
+    private final String baseCode = "EUR";
+    private final String targetCode = "GBP";
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("logging-benchmark", ".log");
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        FileAppender<ILoggingEvent> fileAppender = new FileAppender<>();
+        fileAppender.setContext(context);
+        fileAppender.setFile(file.toString());
+        fileAppender.setEncoder(encoder);
+        fileAppender.start();
+
+        Appender<ILoggingEvent> target = fileAppender;
+        if (appender.equals("async")) {
+            AsyncAppender asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(context);
+            asyncAppender.setQueueSize(8192);
+            asyncAppender.setNeverBlock(false);
+            asyncAppender.setDiscardingThreshold(0);
+            asyncAppender.addAppender(fileAppender);
+            asyncAppender.start();
+            target = asyncAppender;
+        }
+
+        log = context.getLogger("org.pulsar.currency.dao.ExchangeRateDao");
+        log.setLevel(Level.INFO);
+        log.setAdditive(false);
+        log.addAppender(target);
+
+        sampled = hotPath.equals("sampled");
+        sampler = LogSampler.every(Duration.ofSeconds(10));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.stop();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public void lookup() {
+        long start = System.nanoTime();
+        if (sampled) {
+            log.debug("Finding exchange rate with codes ('{}', '{}')...", baseCode, targetCode);
+            log.debug("Exchange rate has been found");
+            sampler.logLookup(log, "findByCodes", start);
+        } else {
+            log.info("Finding exchange rate with codes ('{}', '{}')...", baseCode, targetCode);
+            log.info("Exchange rate has been found");
+        }
+    }
+}
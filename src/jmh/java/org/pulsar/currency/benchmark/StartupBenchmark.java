@@ -0,0 +1,61 @@
+package org.pulsar.currency.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pulsar.currency.EmbeddedServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to first request of the embedded launch mode: from starting the server in a fresh JVM to the first
+ * response of {@code path}, class loading included. Each measurement is a new fork, so the JIT never warms up.
+ * The application connects to the database configured in {@code datasource.properties} on startup,
+ * it has to be reachable as when the application runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({"/currencies"})
+    public String path;
+
+    private EmbeddedServer server;
+
+    @Benchmark
+    public int timeToFirstRequest() throws Exception {
+        server = EmbeddedServer.start(0);
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path)).build();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET " + path + " returned " + response.statusCode());
+            }
+            return response.statusCode();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+}
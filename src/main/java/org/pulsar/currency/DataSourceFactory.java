@@ -2,48 +2,189 @@ package org.pulsar.currency;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.pulsar.currency.metrics.HikariMetricsTrackerFactory;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.util.PropertiesUtils;
+import org.pulsar.currency.util.StringUtils;
 
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
+import java.util.function.Consumer;
 
+/**
+ * Pools of the primary and of the optional read replicas ({@code replica.urls}). Every setting of
+ * {@code datasource.properties} can be overridden by an environment variable prefixed with
+ * {@code DATASOURCE_}, e.g. {@code DATASOURCE_REPLICA_POOL_MAXIMUM_SIZE}. A replica setting
+ * that isn't set falls back to the primary one.
+ */
 public final class DataSourceFactory {
 
-    private static HikariDataSource dataSource;
+    private static volatile HikariDataSource dataSource;
+    private static List<HikariDataSource> replicas = List.of();
+    private static DataSource readDataSource;
+    private static DataSource writeDataSource;
 
     private static final String DEFAULT_PROPERTIES_FILE = "datasource.properties";
+    private static final String ENV_PREFIX = "datasource.";
+    private static final String REPLICA_PREFIX = "replica.";
+    private static final Properties PROPERTIES = getProperties();
 
     private DataSourceFactory() {}
 
+    /**
+     * @return the primary pool, for work that must not be routed
+     */
     public static DataSource getDataSource() {
         if (dataSource == null) {
             synchronized (DataSourceFactory.class) {
                 if (dataSource == null) {
-                    dataSource = createDataSource();
+                    HikariDataSource primary = createDataSource("primary", "", setting("url"));
+                    replicas = createReplicas();
+                    writeDataSource = ReadWriteRouting.writes(primary);
+                    readDataSource = ReadWriteRouting.reads(primary, List.copyOf(replicas));
+                    dataSource = primary;
                 }
             }
         }
         return dataSource;
     }
 
-    private static HikariDataSource createDataSource() {
-        HikariConfig config = createConfig();
+    /**
+     * @return the primary, marking the current request as one that has written
+     */
+    public static DataSource getWriteDataSource() {
+        getDataSource();
+        return writeDataSource;
+    }
+
+    /**
+     * @return the replicas, or the primary for a request that has written or if there are no replicas
+     */
+    public static DataSource getReadDataSource() {
+        getDataSource();
+        return readDataSource;
+    }
+
+    public static int getMaximumPoolSize() {
+        getDataSource();
+        return dataSource.getMaximumPoolSize();
+    }
+
+    /**
+     * Borrows connections until every pool has opened its minimum of idle ones, instead of leaving it
+     * to Hikari to add them in the background while the first requests wait.
+     */
+    public static void fillPools() throws SQLException {
+        getDataSource();
+        fill(dataSource);
+        for (HikariDataSource replica : replicas) {
+            fill(replica);
+        }
+    }
+
+    private static void fill(HikariDataSource pool) throws SQLException {
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            while (borrowed.size() < pool.getMinimumIdle()) {
+                borrowed.add(pool.getConnection());
+            }
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Opens a connection to the primary outside of the pool, for a session that is held for the application lifetime.
+     */
+    public static Connection openConnection() throws SQLException {
+        try {
+            Class.forName(setting("driver"));
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC driver not found", e);
+        }
+        return DriverManager.getConnection(setting("url"), setting("username"), setting("password"));
+    }
+
+    private static List<HikariDataSource> createReplicas() {
+        String urls = setting(REPLICA_PREFIX + "urls");
+        if (StringUtils.isNullOrBlank(urls)) {
+            return List.of();
+        }
+
+        List<HikariDataSource> created = new ArrayList<>();
+        List<String> replicaUrls = Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            created.add(createDataSource("replica-" + (i + 1), REPLICA_PREFIX, replicaUrls.get(i)));
+        }
+        return created;
+    }
+
+    private static HikariDataSource createDataSource(String poolName, String prefix, String url) {
+        HikariConfig config = createConfig(poolName, prefix, url);
         return new HikariDataSource(config);
     }
 
-    private static HikariConfig createConfig() {
+    private static HikariConfig createConfig(String poolName, String prefix, String url) {
         HikariConfig config = new HikariConfig();
-        Properties properties = getProperties();
 
-        config.setJdbcUrl(properties.getProperty("url"));
-        config.setUsername(properties.getProperty("username"));
-        config.setPassword(properties.getProperty("password"));
-        config.setDriverClassName(properties.getProperty("driver"));
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setUsername(setting(prefix, "username"));
+        config.setPassword(setting(prefix, "password"));
+        config.setDriverClassName(setting("driver"));
+        config.setMetricsTrackerFactory(new HikariMetricsTrackerFactory(MetricsRegistry.getInstance()));
 
+        setIfPresent(prefix, "pool.maximum-size", value -> config.setMaximumPoolSize(Integer.parseInt(value)));
+        setIfPresent(prefix, "pool.minimum-idle", value -> config.setMinimumIdle(Integer.parseInt(value)));
+        setIfPresent(prefix, "pool.connection-timeout-ms", value -> config.setConnectionTimeout(Long.parseLong(value)));
+        setIfPresent(prefix, "pool.idle-timeout-ms", value -> config.setIdleTimeout(Long.parseLong(value)));
+        setIfPresent(prefix, "pool.max-lifetime-ms", value -> config.setMaxLifetime(Long.parseLong(value)));
+
+        setIfPresent(prefix, "pgjdbc.prepare-threshold",
+                value -> config.addDataSourceProperty("prepareThreshold", value));
+        setIfPresent(prefix, "pgjdbc.prepared-statement-cache-queries",
+                value -> config.addDataSourceProperty("preparedStatementCacheQueries", value));
+        setIfPresent(prefix, "pgjdbc.prepared-statement-cache-size-mib",
+                value -> config.addDataSourceProperty("preparedStatementCacheSizeMiB", value));
+        setIfPresent(prefix, "pgjdbc.rewrite-batched-inserts",
+                value -> config.addDataSourceProperty("reWriteBatchedInserts", value));
+
+        if (!prefix.isEmpty()) {
+            config.setReadOnly(true);
+        }
         return config;
     }
 
+    private static void setIfPresent(String prefix, String name, Consumer<String> setter) {
+        String value = setting(prefix, name);
+        if (!StringUtils.isNullOrBlank(value)) {
+            setter.accept(value.trim());
+        }
+    }
+
+    private static String setting(String prefix, String name) {
+        String value = setting(prefix + name);
+        return StringUtils.isNullOrBlank(value) ? setting(name) : value;
+    }
+
+    private static String setting(String name) {
+        String envValue = System.getenv(PropertiesUtils.toEnvName(ENV_PREFIX + name));
+        return envValue != null ? envValue : PROPERTIES.getProperty(name);
+    }
+
     private static Properties getProperties() {
         Properties properties = new Properties();
 
@@ -57,6 +198,11 @@ public final class DataSourceFactory {
     }
 
     public static void close() {
+        for (HikariDataSource replica : replicas) {
+            if (!replica.isClosed()) {
+                replica.close();
+            }
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
@@ -0,0 +1,143 @@
+package org.pulsar.currency;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterRegistration;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletRegistration;
+import jakarta.servlet.http.HttpServlet;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.modeler.Registry;
+import org.pulsar.currency.controller.HealthController;
+import org.pulsar.currency.controller.MetricsController;
+import org.pulsar.currency.controller.currency.CurrenciesController;
+import org.pulsar.currency.controller.currency.CurrencyController;
+import org.pulsar.currency.controller.exchange.ExchangeBatchController;
+import org.pulsar.currency.controller.exchange.ExchangeController;
+import org.pulsar.currency.controller.exchange.ExchangeRateController;
+import org.pulsar.currency.controller.exchange.ExchangeRateImportController;
+import org.pulsar.currency.controller.exchange.ExchangeRatesController;
+import org.pulsar.currency.filter.AdmissionFilter;
+import org.pulsar.currency.filter.ContentTypeFilter;
+import org.pulsar.currency.filter.EncodingFilter;
+import org.pulsar.currency.filter.MetricsFilter;
+import org.pulsar.currency.filter.ReadYourWritesFilter;
+import org.pulsar.currency.listener.StartupListener;
+import org.pulsar.currency.util.PropertiesUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static jakarta.servlet.DispatcherType.REQUEST;
+
+/**
+ * Runs the application on an embedded Tomcat instead of deploying {@code ROOT.war}. The listener, filters
+ * and servlets are registered here in code, the same ones the container finds through {@code web.xml} and
+ * their annotations when the war is deployed, so nothing is scanned. Requests are handled on virtual threads and servlets
+ * are initialized before the port opens, the first request doesn't pay for it.
+ * <p>
+ * Started with {@code ./gradlew run}, or {@code java -cp 'build/server/lib/*' org.pulsar.currency.EmbeddedServer}
+ * after {@code ./gradlew installServer}.
+ */
+@Slf4j
+public final class EmbeddedServer implements AutoCloseable {
+
+    private final Tomcat tomcat;
+    private final ExecutorService executor;
+
+    private EmbeddedServer(Tomcat tomcat, ExecutorService executor) {
+        this.tomcat = tomcat;
+        this.executor = executor;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long start = System.nanoTime();
+        EmbeddedServer server = start(PropertiesUtils.getInt("server.port", 8080));
+        log.info("Listening on port {}, started in {} ms", server.getPort(), (System.nanoTime() - start) / 1_000_000);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "embedded-server-shutdown"));
+        server.tomcat.getServer().await();
+    }
+
+    /**
+     * @param port 0 for any free port, see {@link #getPort()}
+     */
+    public static EmbeddedServer start(int port) throws IOException, LifecycleException {
+        // JMX registration of every Tomcat component is a noticeable part of the startup
+        Registry.disableRegistry();
+
+        Path baseDir = Files.createTempDirectory("currency-tomcat");
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(port);
+
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+        Connector connector = tomcat.getConnector();
+        connector.getProtocolHandler().setExecutor(executor);
+
+        Context context = tomcat.addContext("", baseDir.toString());
+        context.addServletContainerInitializer((classes, servletContext) -> register(servletContext), null);
+
+        tomcat.start();
+        return new EmbeddedServer(tomcat, executor);
+    }
+
+    public int getPort() {
+        return tomcat.getConnector().getLocalPort();
+    }
+
+    /**
+     * Filters run in the order they are added.
+     */
+    private static void register(ServletContext servletContext) {
+        servletContext.addListener(new StartupListener());
+
+        addFilter(servletContext, new MetricsFilter());
+        addFilter(servletContext, new ReadYourWritesFilter());
+        addFilter(servletContext, new AdmissionFilter());
+        addFilter(servletContext, new EncodingFilter());
+        addFilter(servletContext, new ContentTypeFilter());
+
+        addServlet(servletContext, new CurrenciesController(), "/currencies");
+        addServlet(servletContext, new CurrencyController(), "/currency/*");
+        addServlet(servletContext, new ExchangeController(), "/exchange");
+        addServlet(servletContext, new ExchangeBatchController(), "/exchange/batch");
+        addServlet(servletContext, new ExchangeRatesController(), "/exchangeRates");
+        addServlet(servletContext, new ExchangeRateImportController(), "/exchangeRates/import");
+        addServlet(servletContext, new ExchangeRateController(), "/exchangeRate/*");
+        addServlet(servletContext, new MetricsController(), "/metrics");
+        addServlet(servletContext, new HealthController(), "/health/*");
+    }
+
+    private static void addFilter(ServletContext servletContext, Filter filter) {
+        FilterRegistration.Dynamic registration = servletContext.addFilter(filter.getClass().getSimpleName(), filter);
+        registration.setAsyncSupported(true);
+        registration.addMappingForUrlPatterns(EnumSet.of(REQUEST), true, "/*");
+    }
+
+    private static void addServlet(ServletContext servletContext, HttpServlet servlet, String mapping) {
+        ServletRegistration.Dynamic registration = servletContext.addServlet(servlet.getClass().getSimpleName(), servlet);
+        registration.setAsyncSupported(true);
+        registration.setLoadOnStartup(1);
+        registration.addMapping(mapping);
+    }
+
+    @Override
+    public void close() {
+        try {
+            tomcat.stop();
+            tomcat.destroy();
+        } catch (LifecycleException e) {
+            log.warn("Embedded server hasn't stopped cleanly", e);
+        } finally {
+            executor.close();
+        }
+    }
+}
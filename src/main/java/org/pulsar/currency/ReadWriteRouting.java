@@ -0,0 +1,123 @@
+package org.pulsar.currency;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Read/write split between the primary and its replicas. Taking a write connection marks the current
+ * thread, and reads of a marked thread go to the primary too, so a request sees what it has just written
+ * whatever the replication lag. The mark is cleared at the end of every request by
+ * {@link org.pulsar.currency.filter.ReadYourWritesFilter}; long-lived threads outside of requests,
+ * like the batch writer, keep it and always read from the primary.
+ * Other reads are spread over the replicas round robin, falling back to the primary if a replica fails.
+ */
+@Slf4j
+public final class ReadWriteRouting {
+
+    private static final ThreadLocal<Boolean> WROTE = new ThreadLocal<>();
+
+    private ReadWriteRouting() {}
+
+    public static DataSource writes(DataSource primary) {
+        return new RoutedDataSource(primary, () -> {
+            WROTE.set(Boolean.TRUE);
+            return primary;
+        });
+    }
+
+    public static DataSource reads(DataSource primary, List<DataSource> replicas) {
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        return new RoutedDataSource(primary, () -> {
+            if (hasWritten()) {
+                return primary;
+            }
+            return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+        });
+    }
+
+    public static boolean hasWritten() {
+        return WROTE.get() != null;
+    }
+
+    public static void clear() {
+        WROTE.remove();
+    }
+
+    private static final class RoutedDataSource implements DataSource {
+
+        private final DataSource primary;
+        private final Supplier<DataSource> route;
+
+        private RoutedDataSource(DataSource primary, Supplier<DataSource> route) {
+            this.primary = primary;
+            this.route = route;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            DataSource target = route.get();
+            try {
+                return target.getConnection();
+            } catch (SQLException e) {
+                if (target == primary) {
+                    throw e;
+                }
+                log.warn("Replica connection hasn't been acquired, reading from the primary", e);
+                return primary.getConnection();
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return route.get().getConnection(username, password);
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return primary.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            primary.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            primary.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return primary.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return primary.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(this) || primary.isWrapperFor(iface);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.pulsar.currency;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Applies idempotent DDL scripts from the classpath at startup, all statements of a script in one transaction.
+ */
+@Slf4j
+public final class SchemaInitializer {
+
+    private SchemaInitializer() {}
+
+    public static void apply(DataSource dataSource, String resource) {
+        List<String> statements = readStatements(resource);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            log.info("Schema script '{}' has been applied", resource);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Schema script '" + resource + "' couldn't be applied", e);
+        }
+    }
+
+    private static List<String> readStatements(String resource) {
+        try (InputStream inputStream = SchemaInitializer.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IllegalStateException("Schema script '" + resource + "' not found");
+            }
+            String script = Arrays.stream(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).split("\n"))
+                    .filter(line -> !line.trim().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+
+            return Arrays.stream(script.split(";"))
+                    .map(String::trim)
+                    .filter(sql -> !sql.isEmpty())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
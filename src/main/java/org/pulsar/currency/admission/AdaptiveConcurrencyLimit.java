@@ -0,0 +1,223 @@
+package org.pulsar.currency.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.metrics.Histogram;
+import org.pulsar.currency.metrics.MetricsRegistry;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limit on the requests handled at the same time that follows the database. Every interval the DAO
+ * query time and the mean connection acquire time since the previous interval are compared with their
+ * healthy values: when queries take longer than {@code latencyTolerance} times their baselines or
+ * requests wait for connections, the limit is cut by a tenth; when requests were turned away while
+ * the database kept up, it grows by a twentieth.
+ * <p>
+ * Each DAO method has its own baseline, the lowest mean seen for it, slowly drifting towards the
+ * current one so that a lasting change is eventually accepted. The query time of an interval is
+ * compared with what its calls would have taken at their baselines, so a few full scans among the
+ * point lookups do not look like a slow database.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimit implements AutoCloseable {
+
+    private static final String DAO_TIMERS = "dao_query_seconds";
+    private static final String POOL_WAIT_TIMERS = "hikaricp_connections_acquire_seconds";
+    private static final double DECREASE_RATIO = 0.9;
+    private static final int INCREASE_DIVISOR = 20;
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int minLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final long maxPoolWaitNanos;
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+
+    private volatile int limit;
+    private volatile boolean saturated;
+
+    // only touched by the adjusting thread
+    private final Map<Histogram, QueryTimes> queryTimes = new HashMap<>();
+    private final Totals poolWaitTotals = new Totals();
+
+    private ScheduledExecutorService scheduler;
+
+    public AdaptiveConcurrencyLimit(int initialLimit,
+                                    int minLimit,
+                                    int maxLimit,
+                                    double latencyTolerance,
+                                    Duration maxPoolWait) {
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.maxPoolWaitNanos = maxPoolWait.toNanos();
+
+        registry.gauge("admission_concurrency_limit", "Requests allowed to be handled at the same time", () -> limit);
+        registry.gauge("admission_in_flight", "Requests being handled", inFlight::get);
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                saturated = true;
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void start(Duration interval) {
+        for (Histogram histogram : registry.histograms(DAO_TIMERS)) {
+            queryTimes.put(histogram, new QueryTimes(histogram));
+        }
+        poolWaitTotals.advance(registry.histograms(POOL_WAIT_TIMERS));
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "concurrency-limit-adjuster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::adjustSafely, millis, millis, TimeUnit.MILLISECONDS);
+        log.info("Concurrency limit starts at {} and is adjusted every {}", limit, interval);
+    }
+
+    void adjust() {
+        double queryNanos = 0;
+        double baselineQueryNanos = 0;
+        for (Histogram histogram : registry.histograms(DAO_TIMERS)) {
+            QueryTimes times = queryTimes.computeIfAbsent(histogram, QueryTimes::new);
+            long recorded = times.advance();
+            if (recorded > 0) {
+                queryNanos += times.intervalSum;
+                baselineQueryNanos += recorded * times.baselineNanos;
+                times.updateBaseline((double) times.intervalSum / recorded);
+            }
+        }
+        double poolWaitMean = poolWaitTotals.advance(registry.histograms(POOL_WAIT_TIMERS));
+        boolean wasSaturated = saturated;
+        saturated = false;
+
+        boolean slowQueries = baselineQueryNanos > 0 && queryNanos > baselineQueryNanos * latencyTolerance;
+        boolean poolWait = !Double.isNaN(poolWaitMean) && poolWaitMean > maxPoolWaitNanos;
+        int current = limit;
+        int next = current;
+        if (slowQueries || poolWait) {
+            next = Math.max(minLimit, (int) (current * DECREASE_RATIO));
+        } else if (wasSaturated) {
+            next = Math.min(maxLimit, current + Math.max(1, current / INCREASE_DIVISOR));
+        }
+
+        if (next != current) {
+            limit = next;
+            log.debug("Concurrency limit {} -> {}, query time {} µs (at baselines {} µs), connection wait mean {} µs",
+                    current, next, micros(queryNanos), micros(baselineQueryNanos), micros(poolWaitMean));
+        }
+    }
+
+    private void adjustSafely() {
+        try {
+            adjust();
+        } catch (Exception e) {
+            log.error("Error while adjusting the concurrency limit, it stays at {}", limit, e);
+        }
+    }
+
+    private static long micros(double nanos) {
+        return Double.isNaN(nanos) ? -1 : (long) (nanos / 1_000);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Query times of one DAO method as of the previous interval, and its healthy mean.
+     */
+    private static final class QueryTimes {
+
+        private final Histogram histogram;
+        private long sum;
+        private long count;
+        private long intervalSum;
+        private double baselineNanos;
+
+        QueryTimes(Histogram histogram) {
+            this.histogram = histogram;
+            this.sum = histogram.getSum();
+            this.count = histogram.getCount();
+        }
+
+        /**
+         * @return number of queries recorded since the previous call, their time is left in {@code intervalSum}
+         */
+        long advance() {
+            long newSum = histogram.getSum();
+            long newCount = histogram.getCount();
+            long recorded = newCount - count;
+            intervalSum = newSum - sum;
+            sum = newSum;
+            count = newCount;
+            if (recorded > 0 && baselineNanos == 0) {
+                baselineNanos = (double) intervalSum / recorded;
+            }
+            return recorded;
+        }
+
+        void updateBaseline(double meanNanos) {
+            baselineNanos = meanNanos < baselineNanos
+                    ? meanNanos
+                    : baselineNanos + (meanNanos - baselineNanos) * BASELINE_DRIFT;
+        }
+    }
+
+    /**
+     * Sum and count of a group of histograms as of the previous interval.
+     */
+    private static final class Totals {
+
+        private long sum;
+        private long count;
+
+        /**
+         * @return mean of the values recorded since the previous call, NaN if there were none
+         */
+        double advance(List<Histogram> histograms) {
+            long newSum = 0;
+            long newCount = 0;
+            for (Histogram histogram : histograms) {
+                newSum += histogram.getSum();
+                newCount += histogram.getCount();
+            }
+
+            long recorded = newCount - count;
+            double mean = recorded > 0 ? (double) (newSum - sum) / recorded : Double.NaN;
+            sum = newSum;
+            count = newCount;
+            return mean;
+        }
+    }
+}
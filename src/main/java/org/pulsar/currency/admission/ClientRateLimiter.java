@@ -0,0 +1,60 @@
+package org.pulsar.currency.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-client token buckets without locks. A bucket is kept as a single {@code long}, the moment it would be
+ * full again (the generic cell rate algorithm, equivalent to a token bucket), and updated with a CAS.
+ * Clients are hashed onto a fixed number of stripes, so memory doesn't grow with the number of clients;
+ * clients that end up on the same stripe share its budget.
+ */
+public final class ClientRateLimiter {
+
+    // one stripe per cache line, neighbouring stripes are updated by different clients
+    private static final int STRIDE = 8;
+
+    private final AtomicLongArray fullAt;
+    private final int mask;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final long origin = System.nanoTime();
+
+    /**
+     * @param stripes rounded up to a power of two
+     */
+    public ClientRateLimiter(int permitsPerSecond, int burst, int stripes) {
+        if (permitsPerSecond <= 0 || burst <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("Rate, burst and stripes must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(stripes - 1, 1)) << 1;
+        this.fullAt = new AtomicLongArray(size * STRIDE);
+        this.mask = size - 1;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        this.burstNanos = intervalNanos * burst;
+    }
+
+    /**
+     * @return 0 if the client may proceed, otherwise how many nanoseconds until it gets a permit
+     */
+    public long tryAcquire(String clientKey) {
+        int index = stripeOf(clientKey) * STRIDE;
+        long now = System.nanoTime() - origin;
+        while (true) {
+            long current = fullAt.get(index);
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(index, current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private int stripeOf(String clientKey) {
+        int hash = clientKey.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,186 @@
+package org.pulsar.currency.async;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.dto.ErrorResponse;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static jakarta.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+/**
+ * Moves request handling off the container thread: the request is put into async mode
+ * and handled on a virtual thread. The number of requests handled at the same time is
+ * limited, so that a slow database makes requests wait here, on cheap virtual threads,
+ * instead of in the connection pool or on the container's platform threads.
+ * <p>
+ * The worker and the async timeout race for the response: whichever moves the request out of its
+ * current state first writes and completes it, the other one leaves it alone.
+ */
+@Slf4j
+public class RequestExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final long acquireTimeoutMillis;
+    private final long asyncTimeoutMillis;
+    private final ObjectMapper objectMapper;
+
+    public RequestExecutor(int maxConcurrency, long acquireTimeoutMillis, long asyncTimeoutMillis, ObjectMapper objectMapper) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+        this.objectMapper = objectMapper;
+    }
+
+    public void execute(HttpServletRequest request, HttpServletResponse response, Handler handler) {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(asyncTimeoutMillis);
+        AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+        asyncContext.addListener(new TimeoutListener(state));
+        executor.execute(() -> handle(asyncContext, state, request, response, handler));
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void handle(AsyncContext asyncContext,
+                        AtomicReference<State> state,
+                        HttpServletRequest request,
+                        HttpServletResponse response,
+                        Handler handler) {
+        boolean acquired = false;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                log.warn("No permit for {} {} within {} ms", request.getMethod(), request.getRequestURI(), acquireTimeoutMillis);
+                finish(asyncContext, state, State.QUEUED, response, SC_SERVICE_UNAVAILABLE, "Сервер перегружен, повторите запрос позже");
+                return;
+            }
+            if (!state.compareAndSet(State.QUEUED, State.HANDLING)) {
+                // timed out while waiting for the permit, the timeout listener has answered
+                return;
+            }
+            handler.handle(request, response);
+            finish(asyncContext, state, State.HANDLING, response, 0, null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(asyncContext, state, State.QUEUED, response, SC_SERVICE_UNAVAILABLE, "Сервер перегружен, повторите запрос позже");
+        } catch (Exception e) {
+            log.error("Error while handling {} {}", request.getMethod(), request.getRequestURI(), e);
+            finish(asyncContext, state, State.HANDLING, response, SC_INTERNAL_SERVER_ERROR, "Ошибка сервера");
+        } finally {
+            if (acquired) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Writes the error, if any, and completes the request, unless it has already left {@code expected}.
+     */
+    private void finish(AsyncContext asyncContext,
+                        AtomicReference<State> state,
+                        State expected,
+                        HttpServletResponse response,
+                        int status,
+                        String message) {
+        if (!state.compareAndSet(expected, State.DONE)) {
+            return;
+        }
+        if (message != null) {
+            sendError(response, status, message);
+        }
+        complete(asyncContext);
+    }
+
+    private void sendError(HttpServletResponse response, int status, String message) {
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            response.setStatus(status);
+            if (status == SC_SERVICE_UNAVAILABLE) {
+                response.setHeader("Retry-After", "1");
+            }
+            objectMapper.writeValue(response.getWriter(), new ErrorResponse(message));
+        } catch (Exception e) {
+            log.warn("Error response couldn't be written", e);
+        }
+    }
+
+    private void complete(AsyncContext asyncContext) {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // the container has already completed the request, e.g. after the async timeout
+            log.debug("Async context has already been completed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private enum State {
+        QUEUED, HANDLING, DONE
+    }
+
+    /**
+     * A request that is still waiting for a permit gets the same 503 as one that got none. A request that
+     * is being handled is left to the container, which completes it, and the worker no longer touches it.
+     */
+    private class TimeoutListener implements AsyncListener {
+
+        private final AtomicReference<State> state;
+
+        private TimeoutListener(AtomicReference<State> state) {
+            this.state = state;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            AsyncContext asyncContext = event.getAsyncContext();
+            if (state.compareAndSet(State.QUEUED, State.DONE)) {
+                sendError((HttpServletResponse) asyncContext.getResponse(), SC_SERVICE_UNAVAILABLE,
+                        "Сервер перегружен, повторите запрос позже");
+                complete(asyncContext);
+            } else if (state.compareAndSet(State.HANDLING, State.DONE)) {
+                log.warn("Request timed out after {} ms while being handled", asyncTimeoutMillis);
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            state.set(State.DONE);
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+
+        void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+}
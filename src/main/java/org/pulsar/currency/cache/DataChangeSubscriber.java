@@ -0,0 +1,243 @@
+package org.pulsar.currency.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.pulsar.currency.dao.ChangeNotifier;
+import org.pulsar.currency.dao.DataChange;
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.metrics.Counter;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.model.ExchangeRate;
+import org.pulsar.currency.service.DataVersion;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Keeps the local caches in line with the changes made by other instances. One dedicated connection
+ * listens on {@link ChangeNotifier#CHANNEL}; changed pairs are re-read from the database and patched into
+ * the cache, everything pending at once in one query. A full reload is done instead when the listening
+ * connection has been (re)opened, when too many pairs changed at once or when a notification is missing:
+ * sequences of concurrent transactions may arrive out of order, so a gap is only trusted after a timeout.
+ */
+@Slf4j
+public class DataChangeSubscriber implements AutoCloseable {
+
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+    // a bigger gap is not waited for, it is reloaded right away
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    private final ConnectionFactory connectionFactory;
+    private final ExchangeRateDao exchangeRateDao;
+    private final ExchangeRateCache exchangeRateCache;
+    private final DataVersion dataVersion;
+    private final String nodeId;
+    private final long gapTimeoutNanos;
+    private final int maxTargetedPairs;
+    private final Duration reconnectDelay;
+    private final Thread thread;
+
+    private final Counter received;
+    private final Counter fullReloads;
+
+    // missing sequence -> deadline
+    private final Map<Long, Long> missing = new TreeMap<>();
+    private long highestSequence;
+
+    private volatile boolean running = true;
+    private volatile Connection connection;
+
+    public DataChangeSubscriber(ConnectionFactory connectionFactory,
+                                ExchangeRateDao exchangeRateDao,
+                                ExchangeRateCache exchangeRateCache,
+                                DataVersion dataVersion,
+                                String nodeId,
+                                Duration gapTimeout,
+                                int maxTargetedPairs,
+                                Duration reconnectDelay) {
+        this.connectionFactory = connectionFactory;
+        this.exchangeRateDao = exchangeRateDao;
+        this.exchangeRateCache = exchangeRateCache;
+        this.dataVersion = dataVersion;
+        this.nodeId = nodeId;
+        this.gapTimeoutNanos = gapTimeout.toNanos();
+        this.maxTargetedPairs = maxTargetedPairs;
+        this.reconnectDelay = reconnectDelay;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.received = registry.counter("data_change_notifications_total", "Change notifications received from other instances");
+        this.fullReloads = registry.counter("data_change_full_reloads_total", "Full reloads caused by missed or bulk changes");
+
+        this.thread = new Thread(this::run, "data-change-subscriber");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection opened = connectionFactory.open()) {
+                connection = opened;
+                listen(opened);
+                PGConnection pgConnection = opened.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null && notifications.length > 0) {
+                        apply(notifications);
+                    }
+                    checkGaps();
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Change notifications connection has failed, reconnecting in {}", reconnectDelay, e);
+                    sleep(reconnectDelay);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error while applying change notifications, reconnecting in {}", reconnectDelay, e);
+                sleep(reconnectDelay);
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    /**
+     * Starts listening before reading the current sequence and reloading, so nothing falls in between.
+     */
+    private void listen(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + ChangeNotifier.CHANNEL);
+            ResultSet resultSet = statement.executeQuery("SELECT last_value FROM data_change_seq");
+            highestSequence = resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+        missing.clear();
+        log.info("Listening for data changes of other instances from sequence {}", highestSequence);
+        reloadAll("listening connection opened");
+    }
+
+    private void apply(PGNotification[] notifications) {
+        Map<String, String[]> changedPairs = new LinkedHashMap<>();
+        boolean reloadRates = false;
+        boolean currenciesChanged = false;
+
+        for (PGNotification notification : notifications) {
+            Optional<DataChange> parsed = DataChange.parse(notification.getParameter());
+            if (parsed.isEmpty()) {
+                log.warn("Malformed change notification '{}' has been ignored", notification.getParameter());
+                continue;
+            }
+
+            DataChange change = parsed.get();
+            track(change.sequence());
+            if (nodeId.equals(change.nodeId())) {
+                continue;
+            }
+
+            received.increment();
+            if (DataChange.CURRENCY.equals(change.kind())) {
+                currenciesChanged = true;
+            } else if (change.isAll()) {
+                reloadRates = true;
+            } else {
+                changedPairs.putIfAbsent(change.key(), change.pair());
+            }
+        }
+
+        if (reloadRates) {
+            reloadAll("a bulk change has been announced");
+        } else if (changedPairs.size() > maxTargetedPairs) {
+            reloadAll(changedPairs.size() + " pairs changed at once");
+        } else if (!changedPairs.isEmpty()) {
+            refreshPairs(new ArrayList<>(changedPairs.values()));
+        } else if (currenciesChanged) {
+            dataVersion.bump();
+        }
+    }
+
+    private void refreshPairs(List<String[]> pairs) {
+        if (!exchangeRateCache.isLoaded()) {
+            dataVersion.bump();
+            return;
+        }
+
+        List<ExchangeRate> exchangeRates = exchangeRateDao.findByCodePairs(pairs);
+        exchangeRateCache.putAll(exchangeRates);
+        log.debug("{} exchange rates changed by other instances have been refreshed", exchangeRates.size());
+    }
+
+    private void track(long sequence) {
+        if (sequence <= highestSequence) {
+            missing.remove(sequence);
+            return;
+        }
+
+        long gap = sequence - highestSequence - 1;
+        if (gap > MAX_TRACKED_GAP) {
+            missing.clear();
+            missing.put(highestSequence + 1, System.nanoTime());
+        } else {
+            long deadline = System.nanoTime() + gapTimeoutNanos;
+            for (long skipped = highestSequence + 1; skipped < sequence; skipped++) {
+                missing.put(skipped, deadline);
+            }
+        }
+        highestSequence = sequence;
+    }
+
+    private void checkGaps() {
+        long now = System.nanoTime();
+        if (missing.values().stream().anyMatch(deadline -> deadline - now <= 0)) {
+            missing.clear();
+            reloadAll("change notifications have been missed");
+        }
+    }
+
+    private void reloadAll(String reason) {
+        log.info("Reloading cached data, {}", reason);
+        fullReloads.increment();
+        if (exchangeRateCache.isLoaded()) {
+            exchangeRateCache.reload();
+        }
+        dataVersion.bump();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Error while closing the change notifications connection", e);
+            }
+        }
+        thread.interrupt();
+    }
+
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        Connection open() throws SQLException;
+    }
+}
@@ -0,0 +1,155 @@
+package org.pulsar.currency.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Read-through cache of all exchange rates. Readers always get a consistent
+ * {@link ExchangeRateSnapshot} without locking, writers publish a new snapshot atomically.
+ * Until the first successful load every read goes to the database, concurrent reads of the same
+ * data share one query. Those reads may go to a replica, reloads read from the primary: a lagging
+ * reload would overwrite rates that have just been written with older ones.
+ */
+@Slf4j
+public class ExchangeRateCache implements AutoCloseable {
+
+    private final ExchangeRateDao exchangeRateDao;
+    private final ExchangeRateDao reloadDao;
+    private final AtomicReference<ExchangeRateSnapshot> snapshot = new AtomicReference<>();
+    private final Object writeLock = new Object();
+    private final List<ExchangeRateCacheListener> listeners = new CopyOnWriteArrayList<>();
+    private final SingleFlight<String, List<ExchangeRate>> findAllFlight = new SingleFlight<>("exchange_rates_all");
+    private final SingleFlight<String, Optional<ExchangeRate>> findByCodesFlight = new SingleFlight<>("exchange_rate");
+
+    private ScheduledExecutorService scheduler;
+
+    public ExchangeRateCache(ExchangeRateDao exchangeRateDao) {
+        this(exchangeRateDao, exchangeRateDao);
+    }
+
+    /**
+     * @param reloadDao reads from the primary, used for {@link #reload()}
+     */
+    public ExchangeRateCache(ExchangeRateDao exchangeRateDao, ExchangeRateDao reloadDao) {
+        this.exchangeRateDao = exchangeRateDao;
+        this.reloadDao = reloadDao;
+    }
+
+    public List<ExchangeRate> findAll() {
+        ExchangeRateSnapshot current = snapshot.get();
+        return current != null ? current.getAll() : findAllFlight.load("", exchangeRateDao::findAll);
+    }
+
+    public Optional<ExchangeRate> findByCodes(String baseCode, String targetCode) {
+        ExchangeRateSnapshot current = snapshot.get();
+        return current != null
+                ? current.findByCodes(baseCode, targetCode)
+                : findByCodesFlight.load(baseCode + '/' + targetCode,
+                        () -> exchangeRateDao.findByCodes(baseCode, targetCode));
+    }
+
+    public void addListener(ExchangeRateCacheListener listener) {
+        listeners.add(listener);
+    }
+
+    public boolean isLoaded() {
+        return snapshot.get() != null;
+    }
+
+    public void reload() {
+        synchronized (writeLock) {
+            ExchangeRateSnapshot loaded = ExchangeRateSnapshot.of(reloadDao.findAll());
+            ExchangeRateSnapshot current = snapshot.get();
+            if (current != null && current.hasSameRates(loaded)) {
+                log.debug("Exchange rates haven't changed since the last reload");
+                return;
+            }
+            snapshot.set(loaded);
+            log.debug("Exchange rates snapshot has been reloaded, {} pairs", loaded.size());
+            listeners.forEach(listener -> listener.onReload(loaded));
+        }
+    }
+
+    /**
+     * Patches the current snapshot with a freshly written rate. If the snapshot
+     * hasn't been loaded yet there is nothing to patch, the next reload will pick it up.
+     */
+    public void put(ExchangeRate exchangeRate) {
+        synchronized (writeLock) {
+            ExchangeRateSnapshot current = snapshot.get();
+            if (current != null) {
+                String baseCode = exchangeRate.getBaseCurrency().getCode();
+                String targetCode = exchangeRate.getTargetCurrency().getCode();
+                boolean added = current.findByCodes(baseCode, targetCode).isEmpty();
+
+                ExchangeRateSnapshot updated = current.with(exchangeRate);
+                snapshot.set(updated);
+                listeners.forEach(listener -> listener.onUpdate(updated, exchangeRate, added));
+            }
+        }
+    }
+
+    /**
+     * Patches the current snapshot with a batch of freshly written rates. Listeners get one
+     * {@link ExchangeRateCacheListener#onUpdateAll} for the whole batch instead of an update per rate.
+     */
+    public void putAll(List<ExchangeRate> exchangeRates) {
+        synchronized (writeLock) {
+            ExchangeRateSnapshot current = snapshot.get();
+            if (current != null && !exchangeRates.isEmpty()) {
+                ExchangeRateSnapshot updated = current;
+                boolean added = false;
+                for (ExchangeRate exchangeRate : exchangeRates) {
+                    added |= current.findByCodes(exchangeRate.getBaseCurrency().getCode(),
+                            exchangeRate.getTargetCurrency().getCode()).isEmpty();
+                    updated = updated.with(exchangeRate);
+                }
+                ExchangeRateSnapshot published = updated;
+                boolean anyAdded = added;
+                snapshot.set(published);
+                listeners.forEach(listener -> listener.onUpdateAll(published, exchangeRates, anyAdded));
+            }
+        }
+    }
+
+    public void startRefreshing(Duration interval) {
+        if (interval.isZero() || interval.isNegative()) {
+            log.info("Periodic refresh of exchange rates is disabled");
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "exchange-rates-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refresh, millis, millis, TimeUnit.MILLISECONDS);
+        log.info("Exchange rates will be refreshed every {}", interval);
+    }
+
+    private void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Error while refreshing exchange rates, the previous snapshot is kept", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
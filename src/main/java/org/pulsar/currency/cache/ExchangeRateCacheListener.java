@@ -0,0 +1,31 @@
+package org.pulsar.currency.cache;
+
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.util.List;
+
+/**
+ * Gets notified after {@link ExchangeRateCache} publishes a new snapshot.
+ * Notifications are delivered one at a time, in the order the snapshots were published.
+ */
+public interface ExchangeRateCacheListener {
+
+    /**
+     * Called after the snapshot has been replaced by a reload that found changes.
+     */
+    void onReload(ExchangeRateSnapshot snapshot);
+
+    /**
+     * @param added {@code true} if the pair didn't exist in the previous snapshot
+     */
+    void onUpdate(ExchangeRateSnapshot snapshot, ExchangeRate exchangeRate, boolean added);
+
+    /**
+     * Called once for a batch of updates, handled as a reload unless the listener can do better.
+     *
+     * @param added {@code true} if any of the pairs didn't exist in the previous snapshot
+     */
+    default void onUpdateAll(ExchangeRateSnapshot snapshot, List<ExchangeRate> exchangeRates, boolean added) {
+        onReload(snapshot);
+    }
+}
@@ -0,0 +1,213 @@
+package org.pulsar.currency.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.dao.ExchangeRateHistoryDao;
+import org.pulsar.currency.model.ExchangeRate;
+import org.pulsar.currency.model.ExchangeRateChange;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Recent rate history of every pair held in memory, so that as-of conversions and history
+ * requests within the window never reach the database. It follows the database through
+ * {@link ExchangeRateCache} notifications: each one pulls the changes committed since the last pull,
+ * by the position of their transaction and not by their time, which is the time the transaction started.
+ * The pulls run on a thread of their own, outside the cache lock and off the writer's thread, and the
+ * notifications that arrive while one runs are served by a single next pull, so the memory catches up
+ * shortly after a write rather than with it.
+ * Every lookup returns an empty {@code Optional} when memory can't answer it and the caller has to query the database.
+ */
+@Slf4j
+public class ExchangeRateHistoryCache implements ExchangeRateCacheListener, AutoCloseable {
+
+    private final ExchangeRateHistoryDao historyDao;
+    private final ExchangeRateCache exchangeRateCache;
+    private final Duration window;
+    private final int capacity;
+    private final Object writeLock = new Object();
+    private final AtomicBoolean catchUpScheduled = new AtomicBoolean();
+    private final ExecutorService catchUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "exchange-rate-history-catch-up");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // replaced as a whole on load, so that readers never see it half-filled
+    private volatile Map<String, PairHistory> histories = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    private long position;
+
+    /**
+     * @param historyDao reads from the primary, a replica may not have the changes that are announced yet
+     */
+    public ExchangeRateHistoryCache(ExchangeRateHistoryDao historyDao,
+                                    ExchangeRateCache exchangeRateCache,
+                                    Duration window,
+                                    int capacity) {
+        this.historyDao = historyDao;
+        this.exchangeRateCache = exchangeRateCache;
+        this.window = window;
+        this.capacity = capacity;
+    }
+
+    public void load() {
+        synchronized (writeLock) {
+            // taken first: whatever the reads below miss is committed at or after it
+            long loadPosition = historyDao.currentPosition();
+            Instant windowStart = Instant.now().minus(window);
+            Map<String, List<ExchangeRateChange>> initial = byPair(historyDao.findLatestAt(windowStart));
+            Map<String, List<ExchangeRateChange>> recent = byPair(historyDao.findSince(windowStart));
+
+            Map<String, PairHistory> loadedHistories = new ConcurrentHashMap<>();
+            // a pair without a change before the window start has its whole history in the window
+            initial.forEach((key, changes) -> loadedHistories.put(key,
+                    PairHistory.empty(false).with(changes, windowStart, capacity)));
+            merge(loadedHistories, recent, windowStart);
+
+            histories = loadedHistories;
+            position = loadPosition;
+            loaded = true;
+            log.info("Exchange rate history has been loaded, {} pairs", loadedHistories.size());
+        }
+    }
+
+    public void catchUp() {
+        if (!loaded) {
+            load();
+            return;
+        }
+
+        synchronized (writeLock) {
+            long nextPosition = historyDao.currentPosition();
+            List<ExchangeRateChange> changes = historyDao.findCommittedSince(position);
+            merge(histories, byPair(changes), Instant.now().minus(window));
+            position = nextPosition;
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Same as {@link ExchangeRateDao#findCandidatesAt}.
+     */
+    public Optional<List<ExchangeRate>> findCandidatesAt(String baseCode, String targetCode, List<String> pivotCodes, Instant at) {
+        if (!loaded || !exchangeRateCache.isLoaded()) {
+            return Optional.empty();
+        }
+
+        Map<String, PairHistory> pairHistories = histories;
+        List<ExchangeRate> result = new ArrayList<>();
+        for (String[] pair : ExchangeRateDao.candidatePairs(baseCode, targetCode, pivotCodes)) {
+            PairHistory history = pairHistories.get(key(pair[0], pair[1]));
+            if (history == null) {
+                continue;
+            } else if (!history.covers(at)) {
+                return Optional.empty();
+            }
+
+            ExchangeRateChange change = history.at(at);
+            if (change == null) {
+                continue;
+            }
+            // the currencies are taken from the current rate, only the rate itself is historical
+            Optional<ExchangeRate> current = exchangeRateCache.findByCodes(pair[0], pair[1]);
+            if (current.isEmpty()) {
+                return Optional.empty();
+            }
+            result.add(ExchangeRate.builder()
+                    .id(current.get().getId())
+                    .baseCurrency(current.get().getBaseCurrency())
+                    .targetCurrency(current.get().getTargetCurrency())
+                    .rate(change.getRate())
+                    .build());
+        }
+        return Optional.of(result);
+    }
+
+    /**
+     * Same as {@link ExchangeRateHistoryDao#findRange}.
+     */
+    public Optional<List<ExchangeRateChange>> findRange(String baseCode, String targetCode, Instant from, Instant to) {
+        if (!loaded) {
+            return Optional.empty();
+        }
+
+        PairHistory history = histories.get(key(baseCode, targetCode));
+        if (history == null) {
+            return Optional.of(List.of());
+        }
+        return history.covers(from) ? Optional.of(history.range(from, to)) : Optional.empty();
+    }
+
+    @Override
+    public void onReload(ExchangeRateSnapshot snapshot) {
+        scheduleCatchUp();
+    }
+
+    @Override
+    public void onUpdate(ExchangeRateSnapshot snapshot, ExchangeRate exchangeRate, boolean added) {
+        scheduleCatchUp();
+    }
+
+    @Override
+    public void close() {
+        catchUpExecutor.shutdownNow();
+    }
+
+    /**
+     * Called under the lock of {@link ExchangeRateCache}, so it only hands the pull over. A pull that has
+     * not started yet also covers this notification.
+     */
+    private void scheduleCatchUp() {
+        if (!catchUpScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            catchUpExecutor.execute(this::refresh);
+        } catch (RejectedExecutionException e) {
+            catchUpScheduled.set(false);
+            log.debug("Exchange rate history catch-up has been skipped, the cache is closed");
+        }
+    }
+
+    private void refresh() {
+        // cleared before the pull: a change committed during it is announced again and pulled next time
+        catchUpScheduled.set(false);
+        try {
+            catchUp();
+        } catch (Exception e) {
+            log.error("Error while catching up with the exchange rate history", e);
+        }
+    }
+
+    private void merge(Map<String, PairHistory> target, Map<String, List<ExchangeRateChange>> changes, Instant windowStart) {
+        changes.forEach((key, pairChanges) -> {
+            // a pair first seen here has been created after the load, nothing older exists
+            PairHistory history = target.getOrDefault(key, PairHistory.empty(true));
+            target.put(key, history.with(pairChanges, windowStart, capacity));
+        });
+    }
+
+    private static Map<String, List<ExchangeRateChange>> byPair(List<ExchangeRateChange> changes) {
+        return changes.stream()
+                .collect(Collectors.groupingBy(change -> key(change.getBaseCurrencyCode(), change.getTargetCurrencyCode())));
+    }
+
+    private static String key(String baseCode, String targetCode) {
+        return baseCode + targetCode;
+    }
+}
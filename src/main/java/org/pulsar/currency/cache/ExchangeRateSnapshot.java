@@ -0,0 +1,79 @@
+package org.pulsar.currency.cache;
+
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable view of all exchange rates. A change never modifies an existing snapshot,
+ * it produces a new one which is then published by {@link ExchangeRateCache}.
+ */
+public final class ExchangeRateSnapshot {
+
+    private final List<ExchangeRate> exchangeRates;
+    private final Map<String, ExchangeRate> byCodes;
+
+    private ExchangeRateSnapshot(List<ExchangeRate> exchangeRates) {
+        this.exchangeRates = Collections.unmodifiableList(exchangeRates);
+        this.byCodes = new HashMap<>(exchangeRates.size() * 2);
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            byCodes.put(key(exchangeRate), exchangeRate);
+        }
+    }
+
+    public static ExchangeRateSnapshot of(List<ExchangeRate> exchangeRates) {
+        return new ExchangeRateSnapshot(new ArrayList<>(exchangeRates));
+    }
+
+    public Optional<ExchangeRate> findByCodes(String baseCode, String targetCode) {
+        return Optional.ofNullable(byCodes.get(key(baseCode, targetCode)));
+    }
+
+    public List<ExchangeRate> getAll() {
+        return exchangeRates;
+    }
+
+    public int size() {
+        return exchangeRates.size();
+    }
+
+    public boolean hasSameRates(ExchangeRateSnapshot other) {
+        return byCodes.equals(other.byCodes);
+    }
+
+    /**
+     * Returns a copy of this snapshot where the pair of the given rate is replaced or appended.
+     */
+    public ExchangeRateSnapshot with(ExchangeRate exchangeRate) {
+        List<ExchangeRate> result = new ArrayList<>(exchangeRates.size() + 1);
+        String key = key(exchangeRate);
+        boolean replaced = false;
+
+        for (ExchangeRate existing : exchangeRates) {
+            if (!replaced && key(existing).equals(key)) {
+                result.add(exchangeRate);
+                replaced = true;
+            } else {
+                result.add(existing);
+            }
+        }
+        if (!replaced) {
+            result.add(exchangeRate);
+        }
+
+        return new ExchangeRateSnapshot(result);
+    }
+
+    private static String key(ExchangeRate exchangeRate) {
+        return key(exchangeRate.getBaseCurrency().getCode(), exchangeRate.getTargetCurrency().getCode());
+    }
+
+    private static String key(String baseCode, String targetCode) {
+        return baseCode + targetCode;
+    }
+}
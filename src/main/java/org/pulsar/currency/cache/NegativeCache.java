@@ -0,0 +1,76 @@
+package org.pulsar.currency.cache;
+
+import org.pulsar.currency.metrics.Counter;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.service.DataVersion;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keys recently looked up and not found, so that repeated lookups of unknown currencies and pairs
+ * don't reach the database. An entry expires after the TTL and as soon as the {@link DataVersion}
+ * moves on, i.e. on any write, local or announced by another instance. The version is taken before
+ * the query, a write that commits while it runs invalidates its result right away.
+ * When the cache is full, expired entries are dropped and new keys aren't remembered until there is room.
+ */
+public final class NegativeCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final DataVersion dataVersion;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Counter hits;
+
+    /**
+     * @param name name of the cache in the metrics
+     */
+    public NegativeCache(String name, DataVersion dataVersion, Duration ttl, int maxSize) {
+        this.dataVersion = dataVersion;
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.hits = registry.counter("negative_cache_hits_total", "Lookups answered as not found without a query",
+                "cache", name);
+        registry.gauge("negative_cache_size", "Keys known not to exist", entries::size, "cache", name);
+    }
+
+    public <V> Optional<V> find(String key, Supplier<Optional<V>> query) {
+        long version = dataVersion.current().version();
+        long now = System.nanoTime();
+
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.isValid(version, now)) {
+                hits.increment();
+                return Optional.empty();
+            }
+            entries.remove(key, entry);
+        }
+
+        Optional<V> result = query.get();
+        if (result.isEmpty() && hasRoom(version, now)) {
+            entries.put(key, new Entry(version, now + ttlNanos));
+        }
+        return result;
+    }
+
+    private boolean hasRoom(long version, long now) {
+        if (entries.size() < maxSize) {
+            return true;
+        }
+        entries.values().removeIf(entry -> !entry.isValid(version, now));
+        return entries.size() < maxSize;
+    }
+
+    private record Entry(long version, long expiresAt) {
+
+        boolean isValid(long currentVersion, long now) {
+            return version == currentVersion && now - expiresAt < 0;
+        }
+    }
+}
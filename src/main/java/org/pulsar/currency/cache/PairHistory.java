@@ -0,0 +1,106 @@
+package org.pulsar.currency.cache;
+
+import org.pulsar.currency.model.ExchangeRateChange;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable, bounded window of the recent changes of one pair, oldest first.
+ * The oldest change kept is the one in effect at the start of the window,
+ * so any moment from that change on can be answered without the database.
+ */
+final class PairHistory {
+
+    private static final Comparator<ExchangeRateChange> ORDER = Comparator
+            .comparing(ExchangeRateChange::getValidFrom)
+            .thenComparingLong(ExchangeRateChange::getId);
+
+    private final ExchangeRateChange[] changes;
+    private final boolean complete;
+
+    private PairHistory(ExchangeRateChange[] changes, boolean complete) {
+        this.changes = changes;
+        this.complete = complete;
+    }
+
+    /**
+     * @param complete {@code true} if there are no changes older than the ones that will be added
+     */
+    static PairHistory empty(boolean complete) {
+        return new PairHistory(new ExchangeRateChange[0], complete);
+    }
+
+    /**
+     * Returns a copy with the given changes merged in; changes already present are ignored. Changes that
+     * are older than the window start, except the one in effect at it, and changes over the capacity are dropped.
+     */
+    PairHistory with(List<ExchangeRateChange> added, Instant windowStart, int capacity) {
+        Set<Long> ids = new HashSet<>();
+        List<ExchangeRateChange> merged = new ArrayList<>(changes.length + added.size());
+        for (ExchangeRateChange change : changes) {
+            ids.add(change.getId());
+            merged.add(change);
+        }
+        for (ExchangeRateChange change : added) {
+            if (ids.add(change.getId())) {
+                merged.add(change);
+            }
+        }
+        merged.sort(ORDER);
+
+        int first = Math.max(0, merged.size() - capacity);
+        while (first + 1 < merged.size() && !merged.get(first + 1).getValidFrom().isAfter(windowStart)) {
+            first++;
+        }
+
+        List<ExchangeRateChange> kept = merged.subList(first, merged.size());
+        return new PairHistory(kept.toArray(new ExchangeRateChange[0]), complete && first == 0);
+    }
+
+    /**
+     * Whether the change in effect at the given moment, or its absence, is known.
+     */
+    boolean covers(Instant at) {
+        return complete || (changes.length > 0 && !changes[0].getValidFrom().isAfter(at));
+    }
+
+    /**
+     * @return the change in effect at the given moment, {@code null} if the pair didn't exist yet
+     */
+    ExchangeRateChange at(Instant at) {
+        int low = 0;
+        int high = changes.length - 1;
+        ExchangeRateChange result = null;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (changes[middle].getValidFrom().isAfter(at)) {
+                high = middle - 1;
+            } else {
+                result = changes[middle];
+                low = middle + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The change in effect at {@code from} followed by the changes up to {@code to}.
+     */
+    List<ExchangeRateChange> range(Instant from, Instant to) {
+        List<ExchangeRateChange> result = new ArrayList<>();
+        ExchangeRateChange first = at(from);
+        if (first != null) {
+            result.add(first);
+        }
+        Arrays.stream(changes)
+                .filter(change -> change.getValidFrom().isAfter(from) && !change.getValidFrom().isAfter(to))
+                .forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,79 @@
+package org.pulsar.currency.cache;
+
+import org.pulsar.currency.ReadWriteRouting;
+import org.pulsar.currency.metrics.Counter;
+import org.pulsar.currency.metrics.MetricsRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent lookups of the same key into one: the first caller runs the query,
+ * the callers arriving while it is in flight wait for it and get the same result or exception.
+ * Nothing is kept once the query is over, the next caller runs a new one.
+ * The shared result must not be modified by the callers.
+ * <p>
+ * A thread that has written in the current request always runs its own query,
+ * a query started before the write might not see it.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    /**
+     * @param lookup name of the lookup in the metrics
+     */
+    public SingleFlight(String lookup) {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.executed = registry.counter("single_flight_queries_total",
+                "Lookups that ran a query", "lookup", lookup);
+        this.coalesced = registry.counter("single_flight_coalesced_total",
+                "Lookups that waited for a query already in flight", "lookup", lookup);
+        registry.gauge("single_flight_in_flight", "Keys with a query in flight", inFlight::size, "lookup", lookup);
+    }
+
+    public V load(K key, Supplier<V> query) {
+        if (ReadWriteRouting.hasWritten()) {
+            executed.increment();
+            return query.get();
+        }
+
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        executed.increment();
+        try {
+            V result = query.get();
+            inFlight.remove(key, own);
+            own.complete(result);
+            return result;
+        } catch (Throwable e) {
+            inFlight.remove(key, own);
+            own.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.pulsar.currency.controller;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.async.RequestExecutor;
+
+import java.io.IOException;
+
+/**
+ * Base class of the controllers that may hand requests over to {@link RequestExecutor}.
+ * The executor is only registered in the servlet context when async mode is enabled,
+ * otherwise requests are handled on the container thread as usual.
+ * Subclasses customizing dispatch override {@link #handle} instead of {@code service}.
+ */
+public abstract class AsyncHttpServlet extends HttpServlet {
+
+    private RequestExecutor requestExecutor;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        requestExecutor = (RequestExecutor) config.getServletContext().getAttribute("requestExecutor");
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (requestExecutor == null
+                || !request.isAsyncSupported()
+                || request.getDispatcherType() != DispatcherType.REQUEST) {
+            handle(request, response);
+        } else {
+            requestExecutor.execute(request, response, this::handle);
+        }
+    }
+
+    protected void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        super.service(request, response);
+    }
+}
@@ -0,0 +1,113 @@
+package org.pulsar.currency.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.service.DataVersion;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Enumeration;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static jakarta.servlet.http.HttpServletResponse.SC_OK;
+
+/**
+ * Validators for GET responses. The ETag is a hash of the body, so every instance holding the same data
+ * issues the same ETag and instances holding different data never do; Last-Modified is the time of the
+ * {@link DataVersion} the body was built from. Only successful responses carry validators: the body is
+ * looked up first and compared with the request's validators afterwards.
+ */
+public final class ConditionalGet {
+
+    private static final int ETAG_BYTES = 16;
+
+    private ConditionalGet() {}
+
+    /**
+     * Writes the body, or {@code 304} if the request's validators still match it.
+     *
+     * @param lastModified read before the data of the body, so that it's never newer than the body
+     */
+    public static void write(HttpServletRequest request,
+                             HttpServletResponse response,
+                             byte[] body,
+                             long lastModified) throws IOException {
+        if (notModified(request, response, etag(body), lastModified)) {
+            return;
+        }
+        response.setStatus(SC_OK);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * @return {@code true} if {@code 304} has been sent and the response is complete
+     */
+    public static boolean notModified(HttpServletRequest request,
+                                      HttpServletResponse response,
+                                      String etag,
+                                      long lastModified) {
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", "no-cache");
+
+        Enumeration<String> ifNoneMatch = request.getHeaders("If-None-Match");
+        boolean notModified = ifNoneMatch != null && ifNoneMatch.hasMoreElements()
+                ? matches(ifNoneMatch, etag)
+                : notModifiedSince(request, lastModified);
+
+        if (notModified) {
+            response.setStatus(SC_NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    /**
+     * Strong ETag of a body: the first {@value #ETAG_BYTES} bytes of its SHA-256.
+     */
+    public static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, ETAG_BYTES)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The gzipped body is a different representation, so it gets its own strong ETag.
+     */
+    public static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private static boolean matches(Enumeration<String> ifNoneMatch, String etag) {
+        while (ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.trim();
+                // If-None-Match uses the weak comparison
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag(etag))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean notModifiedSince(HttpServletRequest request, long lastModified) {
+        long since;
+        try {
+            since = request.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP dates have a one second precision
+        return since >= 0 && lastModified / 1000 <= since / 1000;
+    }
+}
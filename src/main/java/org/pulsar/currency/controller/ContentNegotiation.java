@@ -0,0 +1,136 @@
+package org.pulsar.currency.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Encoding of a body, chosen from {@code Accept} for responses and from {@code Content-Type} for requests.
+ * JSON is the default; CBOR and Smile carry the same data, {@code BigDecimal} rates included, without
+ * printing and parsing numbers as text, for internal consumers that ask for them.
+ */
+public final class ContentNegotiation {
+
+    private final Format json;
+    private final List<Format> formats;
+
+    public ContentNegotiation(ObjectMapper objectMapper) {
+        this.json = new Format("json", "application/json", objectMapper);
+        this.formats = List.of(json,
+                new Format("cbor", "application/cbor", new CBORMapper()),
+                new Format("smile", "application/x-jackson-smile", new SmileMapper()));
+    }
+
+    public Format json() {
+        return json;
+    }
+
+    /**
+     * A format takes its quality from the most specific range that matches it. On a tie of qualities a format
+     * named in {@code Accept} wins over one matched by a wildcard, then the one listed first.
+     *
+     * @return the acceptable format with the highest quality, JSON without {@code Accept},
+     * null when none of the formats is acceptable
+     */
+    public Format negotiate(HttpServletRequest request) {
+        Enumeration<String> accept = request.getHeaders("Accept");
+        List<String[]> ranges = new ArrayList<>();
+        while (accept != null && accept.hasMoreElements()) {
+            for (String range : accept.nextElement().split(",")) {
+                if (!range.isBlank()) {
+                    ranges.add(range.split(";"));
+                }
+            }
+        }
+        if (ranges.isEmpty()) {
+            return json;
+        }
+
+        Format best = null;
+        double bestQuality = 0;
+        int bestSpecificity = -1;
+        for (Format format : formats) {
+            double quality = 0;
+            int specificity = -1;
+            for (String[] range : ranges) {
+                int rangeSpecificity = specificity(range[0], format);
+                if (rangeSpecificity > specificity) {
+                    quality = quality(range);
+                    specificity = rangeSpecificity;
+                }
+            }
+            if (quality > bestQuality || (quality > 0 && quality == bestQuality && specificity > bestSpecificity)) {
+                best = format;
+                bestQuality = quality;
+                bestSpecificity = specificity;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the format of a request body, JSON unless it is declared as one of the others
+     */
+    public Format forContentType(String contentType) {
+        if (contentType == null) {
+            return json;
+        }
+        Format format = forMediaType(contentType.split(";")[0]);
+        return format != null ? format : json;
+    }
+
+    /**
+     * @return 2 for the format's own type, 1 for {@code application/*}, 0 for {@code *}{@code /*},
+     * -1 when the range doesn't match the format
+     */
+    private static int specificity(String mediaRange, Format format) {
+        String type = mediaRange.trim().toLowerCase(Locale.ROOT);
+        if (type.equals(format.contentType())) {
+            return 2;
+        }
+        if (type.equals("application/*")) {
+            return 1;
+        }
+        return type.equals("*/*") ? 0 : -1;
+    }
+
+    private Format forMediaType(String mediaType) {
+        String type = mediaType.trim().toLowerCase(Locale.ROOT);
+        for (Format format : formats) {
+            if (format.contentType().equals(type)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * @param name short name of the format, also the key of its body in {@link PreRenderedResponse}
+     */
+    public record Format(String name, String contentType, ObjectMapper mapper) {
+
+        public boolean isJson() {
+            return name.equals("json");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.pulsar.currency.controller;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.health.Readiness;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static jakarta.servlet.http.HttpServletResponse.SC_OK;
+import static jakarta.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+
+/**
+ * {@code /health/live} answers as long as the process serves requests, {@code /health/ready} only once
+ * the warm-up is over, for the load balancer to hold traffic until then.
+ */
+@WebServlet("/health/*")
+public class HealthController extends HttpServlet {
+
+    private static final byte[] UP = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] WARMING_UP = "{\"status\":\"WARMING_UP\"}".getBytes(StandardCharsets.UTF_8);
+
+    private Readiness readiness;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        readiness = (Readiness) config.getServletContext().getAttribute("readiness");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setHeader("Cache-Control", "no-store");
+        switch (String.valueOf(request.getPathInfo())) {
+            case "/live" -> write(response, SC_OK, UP);
+            case "/ready" -> {
+                boolean ready = readiness == null || readiness.isReady();
+                write(response, ready ? SC_OK : SC_SERVICE_UNAVAILABLE, ready ? UP : WARMING_UP);
+            }
+            default -> response.setStatus(SC_NOT_FOUND);
+        }
+    }
+
+    private static void write(HttpServletResponse response, int status, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,27 @@
+package org.pulsar.currency.controller;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.metrics.PrometheusWriter;
+
+import java.io.IOException;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_OK;
+
+
+@WebServlet("/metrics")
+public class MetricsController extends HttpServlet {
+
+    private final PrometheusWriter prometheusWriter = new PrometheusWriter(MetricsRegistry.getInstance());
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        response.setStatus(SC_OK);
+        response.setContentType(PrometheusWriter.CONTENT_TYPE);
+        prometheusWriter.write(response.getWriter());
+    }
+}
@@ -0,0 +1,125 @@
+package org.pulsar.currency.controller;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.service.DataVersion;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_OK;
+
+/**
+ * Body rendered once per {@link DataVersion} and format and then copied to every response as is,
+ * or answered with {@code 304} through {@link ConditionalGet}, the ETag is hashed along with the rendering.
+ * The version is read before the data, so a body is never older than the version it's stored under.
+ * Formats other than JSON are only rendered once they are asked for.
+ */
+public class PreRenderedResponse {
+
+    private static final int MIN_GZIP_SIZE = 1024;
+
+    private final Supplier<?> source;
+    private final ContentNegotiation.Format json;
+    private final DataVersion dataVersion;
+    private final Object renderLock = new Object();
+    private final Map<String, Rendered> rendered = new ConcurrentHashMap<>();
+
+    public PreRenderedResponse(Supplier<?> source, ObjectMapper objectMapper, DataVersion dataVersion) {
+        this.source = source;
+        this.json = new ContentNegotiation.Format("json", "application/json", objectMapper);
+        this.dataVersion = dataVersion;
+    }
+
+    public void write(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(request, response, json, "Accept-Encoding");
+    }
+
+    /**
+     * Writes the body in a negotiated format, the response varies on {@code Accept} as well.
+     */
+    public void write(HttpServletRequest request, HttpServletResponse response, ContentNegotiation.Format format) throws IOException {
+        write(request, response, format, "Accept, Accept-Encoding");
+    }
+
+    private void write(HttpServletRequest request,
+                       HttpServletResponse response,
+                       ContentNegotiation.Format format,
+                       String vary) throws IOException {
+        Rendered current = get(format);
+        byte[] body = current.body();
+
+        response.setHeader("Vary", vary);
+        if (ConditionalGet.notModified(request, response, current.etag(), current.lastModified())) {
+            return;
+        }
+
+        response.setContentType(format.contentType());
+        if (current.gzip() != null && acceptsGzip(request)) {
+            body = current.gzip();
+            response.setHeader("Content-Encoding", "gzip");
+            response.setHeader("ETag", ConditionalGet.gzipEtag(current.etag()));
+        }
+
+        response.setStatus(SC_OK);
+        response.setContentLength(body.length);
+        ServletOutputStream outputStream = response.getOutputStream();
+        outputStream.write(body);
+    }
+
+    private Rendered get(ContentNegotiation.Format format) {
+        Rendered current = rendered.get(format.name());
+        DataVersion.Stamp stamp = dataVersion.current();
+        if (current != null && current.version() == stamp.version()) {
+            return current;
+        }
+
+        synchronized (renderLock) {
+            current = rendered.get(format.name());
+            if (current == null || current.version() != stamp.version()) {
+                current = render(stamp, format);
+                rendered.put(format.name(), current);
+            }
+            return current;
+        }
+    }
+
+    private Rendered render(DataVersion.Stamp stamp, ContentNegotiation.Format format) {
+        byte[] body = format.mapper().writeValueAsBytes(source.get());
+        byte[] gzip = body.length >= MIN_GZIP_SIZE ? gzip(body) : null;
+        return new Rendered(stamp.version(), stamp.lastModified(), body, ConditionalGet.etag(body), gzip);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(result)) {
+            gzipStream.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toByteArray();
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> acceptEncoding = request.getHeaders("Accept-Encoding");
+        while (acceptEncoding != null && acceptEncoding.hasMoreElements()) {
+            for (String coding : acceptEncoding.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+
+    private record Rendered(long version, long lastModified, byte[] body, String etag, byte[] gzip) {}
+}
@@ -4,43 +4,46 @@ import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.controller.AsyncHttpServlet;
+import org.pulsar.currency.controller.PreRenderedResponse;
 import org.pulsar.currency.controller.handler.ExceptionHandler;
 import org.pulsar.currency.dto.currency.CurrencyCreateRequest;
 import org.pulsar.currency.dto.currency.CurrencyResponse;
 import org.pulsar.currency.service.CurrencyService;
+import org.pulsar.currency.service.DataVersion;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.util.List;
 
 import static jakarta.servlet.http.HttpServletResponse.SC_CREATED;
-import static jakarta.servlet.http.HttpServletResponse.SC_OK;
 
 
-@WebServlet("/currencies")
-public class CurrenciesController extends HttpServlet {
+@WebServlet(value = "/currencies", asyncSupported = true)
+public class CurrenciesController extends AsyncHttpServlet {
 
     private ObjectMapper objectMapper;
     private CurrencyService currencyService;
     private ExceptionHandler exceptionHandler;
+    private DataVersion dataVersion;
+    private PreRenderedResponse listResponse;
 
     @Override
     public void init(ServletConfig config) throws ServletException {
+        super.init(config);
         ServletContext context = config.getServletContext();
         objectMapper = (ObjectMapper) context.getAttribute("objectMapper");
         currencyService = (CurrencyService) context.getAttribute("currencyService");
         exceptionHandler = (ExceptionHandler) context.getAttribute("exceptionHandler");
+        dataVersion = (DataVersion) context.getAttribute("dataVersion");
+        listResponse = new PreRenderedResponse(currencyService::getAll, objectMapper, dataVersion);
     }
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         try {
-            List<CurrencyResponse> currencies = currencyService.getAll();
-            response.setStatus(SC_OK);
-            objectMapper.writeValue(response.getWriter(), currencies);
+            listResponse.write(request, response);
         } catch (Exception e) {
             exceptionHandler.handle(e, response);
         }
@@ -5,13 +5,15 @@ import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.controller.AsyncHttpServlet;
+import org.pulsar.currency.controller.ConditionalGet;
 import org.pulsar.currency.controller.handler.ExceptionHandler;
 import org.pulsar.currency.dto.ErrorResponse;
 import org.pulsar.currency.dto.currency.CurrencyResponse;
 import org.pulsar.currency.service.CurrencyService;
+import org.pulsar.currency.service.DataVersion;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
@@ -19,23 +21,25 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static jakarta.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
-import static jakarta.servlet.http.HttpServletResponse.SC_OK;
 
-@WebServlet("/currency/*")
-public class CurrencyController extends HttpServlet {
+@WebServlet(value = "/currency/*", asyncSupported = true)
+public class CurrencyController extends AsyncHttpServlet {
 
     private ObjectMapper objectMapper;
     private CurrencyService currencyService;
     private ExceptionHandler exceptionHandler;
+    private DataVersion dataVersion;
 
     private static final String CODE_PATTERN = "^/currency/(?<code>[a-zA-Z]{3})$";
 
     @Override
     public void init(ServletConfig config) throws ServletException {
+        super.init(config);
         ServletContext context = config.getServletContext();
         objectMapper = (ObjectMapper) context.getAttribute("objectMapper");
         currencyService = (CurrencyService) context.getAttribute("currencyService");
         exceptionHandler = (ExceptionHandler) context.getAttribute("exceptionHandler");
+        dataVersion = (DataVersion) context.getAttribute("dataVersion");
     }
 
     @Override
@@ -46,9 +50,9 @@ public class CurrencyController extends HttpServlet {
             objectMapper.writeValue(response.getWriter(), new ErrorResponse("Код валюты отсутствует или является некорректным"));
         } else {
             try {
+                long lastModified = dataVersion.current().lastModified();
                 CurrencyResponse currencyResponse = currencyService.getByCode(currencyCode);
-                response.setStatus(SC_OK);
-                objectMapper.writeValue(response.getWriter(), currencyResponse);
+                ConditionalGet.write(request, response, objectMapper.writeValueAsBytes(currencyResponse), lastModified);
             } catch (Exception e) {
                 exceptionHandler.handle(e, response);
             }
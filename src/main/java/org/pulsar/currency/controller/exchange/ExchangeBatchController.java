@@ -0,0 +1,202 @@
+package org.pulsar.currency.controller.exchange;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.controller.AsyncHttpServlet;
+import org.pulsar.currency.controller.ContentNegotiation;
+import org.pulsar.currency.controller.handler.ExceptionHandler;
+import org.pulsar.currency.controller.handler.HandledError;
+import org.pulsar.currency.dto.exchange.ExchangeBatchItem;
+import org.pulsar.currency.dto.exchange.ExchangeBatchResponse;
+import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.service.ExchangeBatch;
+import org.pulsar.currency.service.ExchangeRateService;
+import org.pulsar.currency.util.PropertiesUtils;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static jakarta.servlet.http.HttpServletResponse.SC_OK;
+import static jakarta.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+
+/**
+ * Converts a JSON array or NDJSON stream of {@code {from, to, amount}} items. Results are streamed
+ * back in the same order and format, a failed item is reported in place and doesn't fail the batch.
+ * An array may also be sent as CBOR or Smile, and the results asked for in either through {@code Accept}.
+ * A batch that can't be read at all is answered with a JSON error.
+ */
+@WebServlet(value = "/exchange/batch", asyncSupported = true)
+public class ExchangeBatchController extends AsyncHttpServlet {
+
+    private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+
+    private ObjectMapper objectMapper;
+    private ContentNegotiation contentNegotiation;
+    private ExchangeRateService exchangeRateService;
+    private ExceptionHandler exceptionHandler;
+    private int maxBatchSize;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        ServletContext context = config.getServletContext();
+        objectMapper = (ObjectMapper) context.getAttribute("objectMapper");
+        contentNegotiation = (ContentNegotiation) context.getAttribute("contentNegotiation");
+        exchangeRateService = (ExchangeRateService) context.getAttribute("exchangeRateService");
+        exceptionHandler = (ExceptionHandler) context.getAttribute("exceptionHandler");
+        maxBatchSize = PropertiesUtils.getInt("exchange.batch.max-size", 10_000);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        boolean ndjson = isNdjson(request.getContentType());
+        ObjectMapper inputMapper = ndjson ? objectMapper : contentNegotiation.forContentType(request.getContentType()).mapper();
+        ContentNegotiation.Format output = ndjson ? contentNegotiation.json() : contentNegotiation.negotiate(request);
+        response.setHeader("Vary", "Accept");
+        if (output == null) {
+            exceptionHandler.notAcceptable(response);
+            return;
+        }
+
+        ExchangeBatch batch = exchangeRateService.startBatch();
+        try (MappingIterator<ExchangeBatchItem> items = inputMapper.readerFor(ExchangeBatchItem.class)
+                .readValues(request.getInputStream());
+             ResultWriter writer = ndjson
+                     ? new NdjsonWriter(response.getOutputStream())
+                     : new ArrayWriter(output.mapper().writer()
+                             .without(StreamWriteFeature.AUTO_CLOSE_TARGET, StreamWriteFeature.FLUSH_PASSED_TO_STREAM)
+                             .createGenerator(response.getOutputStream()))) {
+            response.setStatus(SC_OK);
+            response.setContentType(ndjson ? NDJSON_CONTENT_TYPE : output.contentType());
+            convert(items, batch, writer);
+        } catch (JacksonException e) {
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                exceptionHandler.handle(new IllegalArgumentException(e), response);
+            }
+        }
+    }
+
+    private void convert(MappingIterator<ExchangeBatchItem> items, ExchangeBatch batch, ResultWriter writer) throws IOException {
+        int index = 0;
+        while (true) {
+            ExchangeBatchItem item;
+            try {
+                if (!items.hasNextValue()) {
+                    return;
+                }
+                item = items.nextValue();
+            } catch (JacksonException e) {
+                writer.write(error(index, SC_BAD_REQUEST, "Некорректный формат элемента пакета"));
+                return;
+            }
+
+            if (index >= maxBatchSize) {
+                writer.write(error(index, SC_REQUEST_ENTITY_TOO_LARGE, "Превышен максимальный размер пакета: " + maxBatchSize));
+                return;
+            }
+            writer.write(convert(index, item, batch));
+            index++;
+        }
+    }
+
+    private ExchangeBatchResponse convert(int index, ExchangeBatchItem item, ExchangeBatch batch) {
+        try {
+            ExchangeResponse result = batch.exchange(buildExchangeRequest(item));
+            return ExchangeBatchResponse.builder()
+                    .index(index)
+                    .result(result)
+                    .build();
+        } catch (Exception e) {
+            HandledError error = exceptionHandler.resolve(e);
+            return error(index, error.status(), error.message());
+        }
+    }
+
+    private ExchangeRequest buildExchangeRequest(ExchangeBatchItem item) {
+        if (item == null) {
+            return null;
+        }
+
+        return ExchangeRequest.builder()
+                .baseCurrencyCode(item.from())
+                .targetCurrencyCode(item.to())
+                .amount(item.amount())
+                .build();
+    }
+
+    private static ExchangeBatchResponse error(int index, int status, String message) {
+        return ExchangeBatchResponse.builder()
+                .index(index)
+                .status(status)
+                .error(message)
+                .build();
+    }
+
+    private static boolean isNdjson(String contentType) {
+        return contentType != null && contentType.toLowerCase().startsWith(NDJSON_CONTENT_TYPE);
+    }
+
+    /**
+     * Closing a writer leaves the response open, a batch that failed before the response was committed
+     * can then still be replaced by the error.
+     */
+    private interface ResultWriter extends AutoCloseable {
+
+        void write(ExchangeBatchResponse response) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class ArrayWriter implements ResultWriter {
+
+        private final JsonGenerator generator;
+
+        ArrayWriter(JsonGenerator generator) {
+            this.generator = generator;
+            generator.writeStartArray();
+        }
+
+        @Override
+        public void write(ExchangeBatchResponse response) {
+            generator.writePOJO(response);
+        }
+
+        @Override
+        public void close() {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+
+    private final class NdjsonWriter implements ResultWriter {
+
+        private final OutputStream outputStream;
+
+        NdjsonWriter(OutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(ExchangeBatchResponse response) throws IOException {
+            outputStream.write(objectMapper.writeValueAsBytes(response));
+            outputStream.write('\n');
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -4,36 +4,43 @@ import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.controller.AsyncHttpServlet;
 import org.pulsar.currency.controller.handler.ExceptionHandler;
 import org.pulsar.currency.dto.ErrorResponse;
 import org.pulsar.currency.dto.exchange.ExchangeRequest;
 import org.pulsar.currency.dto.exchange.ExchangeResponse;
 import org.pulsar.currency.exception.DatabaseException;
 import org.pulsar.currency.exception.exchange.ExchangeRateNotFoundException;
+import org.pulsar.currency.service.ExchangeRateHistoryService;
 import org.pulsar.currency.service.ExchangeRateService;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.time.Instant;
 
 import static jakarta.servlet.http.HttpServletResponse.*;
 
 
-@WebServlet("/exchange")
-public class ExchangeController extends HttpServlet {
+@WebServlet(value = "/exchange", asyncSupported = true)
+public class ExchangeController extends AsyncHttpServlet {
 
     private ObjectMapper objectMapper;
     private ExchangeRateService exchangeRateService;
     private ExceptionHandler exceptionHandler;
+    private ExchangeRateHistoryService exchangeRateHistoryService;
+
+    private static final ExchangeRateRequestParser REQUEST_PARSER = new ExchangeRateRequestParser();
 
     @Override
     public void init(ServletConfig config) throws ServletException {
+        super.init(config);
         ServletContext context = config.getServletContext();
         objectMapper = (ObjectMapper) context.getAttribute("objectMapper");
         exchangeRateService = (ExchangeRateService) context.getAttribute("exchangeRateService");
         exceptionHandler = (ExceptionHandler) context.getAttribute("exceptionHandler");
+        exchangeRateHistoryService = (ExchangeRateHistoryService) context.getAttribute("exchangeRateHistoryService");
     }
 
     @Override
@@ -41,7 +48,11 @@ public class ExchangeController extends HttpServlet {
         ExchangeRequest exchangeRequest = buildExchangeRequest(request);
 
         try {
-            ExchangeResponse exchangeResponse = exchangeRateService.exchange(exchangeRequest);
+            // with "at" the conversion uses the rates that were in effect at that moment
+            Instant at = REQUEST_PARSER.parseInstant(request.getParameter("at"));
+            ExchangeResponse exchangeResponse = at == null
+                    ? exchangeRateService.exchange(exchangeRequest)
+                    : exchangeRateHistoryService.exchangeAt(exchangeRequest, at);
             response.setStatus(SC_OK);
             objectMapper.writeValue(response.getWriter(), exchangeResponse);
         } catch (Exception e) {
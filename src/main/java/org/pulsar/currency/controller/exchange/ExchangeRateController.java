@@ -5,65 +5,105 @@ import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.controller.AsyncHttpServlet;
+import org.pulsar.currency.controller.ConditionalGet;
+import org.pulsar.currency.controller.exchange.ExchangeRateRequestParser.CodePair;
 import org.pulsar.currency.controller.handler.ExceptionHandler;
 import org.pulsar.currency.dto.ErrorResponse;
 import org.pulsar.currency.dto.exchange.ExchangeRateCreateRequest;
+import org.pulsar.currency.dto.exchange.ExchangeRateHistoryResponse;
 import org.pulsar.currency.dto.exchange.ExchangeRateResponse;
 import org.pulsar.currency.exception.currency.CurrencyNotFoundException;
 import org.pulsar.currency.exception.DatabaseException;
 import org.pulsar.currency.exception.exchange.ExchangeRateNotFoundException;
+import org.pulsar.currency.service.DataVersion;
+import org.pulsar.currency.service.ExchangeRateHistoryService;
 import org.pulsar.currency.service.ExchangeRateService;
+import org.pulsar.currency.util.PropertiesUtils;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static jakarta.servlet.http.HttpServletResponse.*;
 
-@WebServlet("/exchangeRate/*")
-public class ExchangeRateController extends HttpServlet {
+@WebServlet(value = "/exchangeRate/*", asyncSupported = true)
+public class ExchangeRateController extends AsyncHttpServlet {
 
     private ObjectMapper objectMapper;
     private ExchangeRateService exchangeRateService;
     private ExceptionHandler exceptionHandler;
+    private DataVersion dataVersion;
+    private ExchangeRateHistoryService exchangeRateHistoryService;
+    private Duration defaultHistoryPeriod;
 
-    private static final String CODES_PATTERN = "^/exchangeRate/(?<basecode>[a-zA-Z]{3})(?<targetcode>[a-zA-Z]{3})$";
+    private static final ExchangeRateRequestParser REQUEST_PARSER = new ExchangeRateRequestParser();
 
     @Override
     public void init(ServletConfig config) throws ServletException {
+        super.init(config);
         ServletContext context = config.getServletContext();
         objectMapper = (ObjectMapper) context.getAttribute("objectMapper");
         exchangeRateService = (ExchangeRateService) context.getAttribute("exchangeRateService");
         exceptionHandler = (ExceptionHandler) context.getAttribute("exceptionHandler");
+        dataVersion = (DataVersion) context.getAttribute("dataVersion");
+        exchangeRateHistoryService = (ExchangeRateHistoryService) context.getAttribute("exchangeRateHistoryService");
+        defaultHistoryPeriod = Duration.ofHours(PropertiesUtils.getLong("history.window-hours", 24));
     }
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        String requestURI = request.getRequestURI();
-        String baseCode = extractBaseCode(requestURI);
-        String targetCode = extractTargetCode(requestURI);
+        CodePair historyCodes = REQUEST_PARSER.parseHistoryCodes(request.getRequestURI());
+        if (historyCodes != CodePair.EMPTY) {
+            doGetHistory(historyCodes, request, response);
+            return;
+        }
+
+        CodePair codes = REQUEST_PARSER.parseCodes(request.getRequestURI());
+
+        try {
+            long lastModified = dataVersion.current().lastModified();
+            ExchangeRateResponse exchangeRateResponse = exchangeRateService.getByCodes(codes.baseCode(), codes.targetCode());
+            ConditionalGet.write(request, response, objectMapper.writeValueAsBytes(exchangeRateResponse), lastModified);
+        } catch (Exception e) {
+            exceptionHandler.handle(e, response);
+        }
+    }
 
+    /**
+     * {@code GET /exchangeRate/XXXYYY/history?from=&to=}, by default the last {@code history.window-hours}.
+     * Not conditional: the default window ends now, so the body changes with time even when the data doesn't.
+     */
+    private void doGetHistory(CodePair codes, HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
-            ExchangeRateResponse exchangeRateResponse = exchangeRateService.getByCodes(baseCode, targetCode);
+            Instant to = REQUEST_PARSER.parseInstant(request.getParameter("to"));
+            Instant from = REQUEST_PARSER.parseInstant(request.getParameter("from"));
+            if (to == null) {
+                to = Instant.now();
+            }
+            if (from == null) {
+                from = to.minus(defaultHistoryPeriod);
+            }
+
+            ExchangeRateHistoryResponse historyResponse =
+                    exchangeRateHistoryService.getHistory(codes.baseCode(), codes.targetCode(), from, to);
             response.setStatus(SC_OK);
-            objectMapper.writeValue(response.getWriter(), exchangeRateResponse);
+            objectMapper.writeValue(response.getWriter(), historyResponse);
         } catch (Exception e) {
             exceptionHandler.handle(e, response);
         }
     }
 
     @Override
-    protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+    protected void handle(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         if (request.getMethod().equalsIgnoreCase("PATCH")) {
             doPatch(request, response);
         } else {
-            super.service(request, response);
+            super.handle(request, response);
         }
     }
 
@@ -80,14 +120,12 @@ public class ExchangeRateController extends HttpServlet {
     }
 
     private ExchangeRateCreateRequest buildUpdateRequest(HttpServletRequest request) throws IOException {
-        String requestURI = request.getRequestURI();
-        String baseCurrencyCode = extractBaseCode(requestURI);
-        String targetCurrencyCode = extractTargetCode(requestURI);
+        CodePair codes = REQUEST_PARSER.parseCodes(request.getRequestURI());
         String rate = getParameter(request, "rate");
 
         return ExchangeRateCreateRequest.builder()
-                .baseCurrencyCode(baseCurrencyCode)
-                .targetCurrencyCode(targetCurrencyCode)
+                .baseCurrencyCode(codes.baseCode())
+                .targetCurrencyCode(codes.targetCode())
                 .rate(rate)
                 .build();
     }
@@ -97,28 +135,7 @@ public class ExchangeRateController extends HttpServlet {
     }
 
     private Map<String, String> getParameters(HttpServletRequest request) throws IOException {
-        Map<String, String> params = new HashMap<>();
         byte[] bytes = request.getInputStream().readAllBytes();
-        String body = new String(bytes);
-        String[] pairs = body.split("&");
-
-        for (String pair : pairs) {
-            String[] keyValue = pair.split("=");
-            if (keyValue.length == 2) {
-                params.put(keyValue[0], keyValue[1]);
-            }
-        }
-
-        return params;
-    }
-
-    private String extractBaseCode(String uri) {
-        Matcher matcher = Pattern.compile(CODES_PATTERN).matcher(uri);
-        return matcher.matches() ? matcher.group("basecode") : null;
-    }
-
-    private String extractTargetCode(String uri) {
-        Matcher matcher = Pattern.compile(CODES_PATTERN).matcher(uri);
-        return matcher.matches() ? matcher.group("targetcode") : null;
+        return REQUEST_PARSER.parseForm(bytes);
     }
 }
@@ -0,0 +1,75 @@
+package org.pulsar.currency.controller.exchange;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.controller.AsyncHttpServlet;
+import org.pulsar.currency.controller.exchange.ExchangeRateImportReader.ImportLimitExceededException;
+import org.pulsar.currency.controller.handler.ExceptionHandler;
+import org.pulsar.currency.dto.ErrorResponse;
+import org.pulsar.currency.dto.exchange.ExchangeRateImportResponse;
+import org.pulsar.currency.service.ExchangeRateService;
+import org.pulsar.currency.util.PropertiesUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_OK;
+import static jakarta.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+import static jakarta.servlet.http.HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE;
+
+/**
+ * Imports a whole rate sheet at once. The body is CSV ({@code text/csv}) or NDJSON / JSON array
+ * of {@code {baseCurrencyCode, targetCurrencyCode, rate}}; existing pairs get the new rate.
+ * The response tells the outcome of every row.
+ */
+@WebServlet(value = "/exchangeRates/import", asyncSupported = true)
+public class ExchangeRateImportController extends AsyncHttpServlet {
+
+    private ObjectMapper objectMapper;
+    private ExchangeRateService exchangeRateService;
+    private ExceptionHandler exceptionHandler;
+    private int maxRows;
+    private int batchSize;
+
+    @Override
+    public void init(ServletConfig config) throws ServletException {
+        super.init(config);
+        ServletContext context = config.getServletContext();
+        objectMapper = (ObjectMapper) context.getAttribute("objectMapper");
+        exchangeRateService = (ExchangeRateService) context.getAttribute("exchangeRateService");
+        exceptionHandler = (ExceptionHandler) context.getAttribute("exceptionHandler");
+        maxRows = PropertiesUtils.getInt("exchange.import.max-size", 100_000);
+        batchSize = PropertiesUtils.getInt("exchange.import.batch-size", 1000);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String contentType = request.getContentType() == null ? "" : request.getContentType().toLowerCase();
+        try {
+            ExchangeRateImportReader rows;
+            if (contentType.startsWith("text/csv")) {
+                rows = ExchangeRateImportReader.csv(request.getReader(), maxRows);
+            } else if (contentType.startsWith("application/x-ndjson") || contentType.startsWith("application/json")) {
+                rows = ExchangeRateImportReader.json(objectMapper, request.getInputStream(), maxRows);
+            } else {
+                response.setStatus(SC_UNSUPPORTED_MEDIA_TYPE);
+                objectMapper.writeValue(response.getWriter(),
+                        new ErrorResponse("Поддерживаются только text/csv, application/x-ndjson и application/json"));
+                return;
+            }
+
+            ExchangeRateImportResponse importResponse = exchangeRateService.importRates(rows, batchSize);
+            response.setStatus(SC_OK);
+            objectMapper.writeValue(response.getWriter(), importResponse);
+        } catch (ImportLimitExceededException e) {
+            response.setStatus(SC_REQUEST_ENTITY_TOO_LARGE);
+            objectMapper.writeValue(response.getWriter(), new ErrorResponse("Превышен максимальный размер импорта: " + maxRows));
+        } catch (Exception e) {
+            exceptionHandler.handle(e, response);
+        }
+    }
+}
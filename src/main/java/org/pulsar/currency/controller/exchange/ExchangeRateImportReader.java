@@ -0,0 +1,142 @@
+package org.pulsar.currency.controller.exchange;
+
+import org.pulsar.currency.dto.exchange.ExchangeRateCreateRequest;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of an import one at a time, the request body is never buffered as a whole.
+ * A row with wrong values is still returned and gets rejected by validation,
+ * a body that can't be parsed at all fails with {@link IllegalArgumentException}.
+ */
+abstract class ExchangeRateImportReader implements Iterator<ExchangeRateCreateRequest> {
+
+    private final int maxRows;
+    private int count;
+    private ExchangeRateCreateRequest next;
+
+    private ExchangeRateImportReader(int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * {@code baseCurrencyCode,targetCurrencyCode,rate} per line, an optional header line is skipped.
+     */
+    static ExchangeRateImportReader csv(Reader reader, int maxRows) {
+        return new CsvReader(new BufferedReader(reader), maxRows);
+    }
+
+    /**
+     * NDJSON or a JSON array of {@code {baseCurrencyCode, targetCurrencyCode, rate}} objects.
+     */
+    static ExchangeRateImportReader json(ObjectMapper objectMapper, InputStream inputStream, int maxRows) {
+        try {
+            MappingIterator<ExchangeRateCreateRequest> rows = objectMapper.readerFor(ExchangeRateCreateRequest.class)
+                    .readValues(inputStream);
+            return new JsonReader(rows, maxRows);
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    protected abstract ExchangeRateCreateRequest readRow();
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readRow();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ExchangeRateCreateRequest next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (++count > maxRows) {
+            throw new ImportLimitExceededException(maxRows);
+        }
+        ExchangeRateCreateRequest result = next;
+        next = null;
+        return result;
+    }
+
+    static final class ImportLimitExceededException extends RuntimeException {
+
+        ImportLimitExceededException(int maxRows) {
+            super("Import is limited to " + maxRows + " rows");
+        }
+    }
+
+    private static final class CsvReader extends ExchangeRateImportReader {
+
+        private static final String HEADER = "baseCurrencyCode";
+
+        private final BufferedReader reader;
+        private boolean firstLine = true;
+
+        private CsvReader(BufferedReader reader, int maxRows) {
+            super(maxRows);
+            this.reader = reader;
+        }
+
+        @Override
+        protected ExchangeRateCreateRequest readRow() {
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    boolean header = firstLine && line.trim().regionMatches(true, 0, HEADER, 0, HEADER.length());
+                    firstLine = false;
+                    if (!line.isBlank() && !header) {
+                        return parse(line);
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static ExchangeRateCreateRequest parse(String line) {
+            String[] columns = line.split("[,;]", -1);
+            return ExchangeRateCreateRequest.builder()
+                    .baseCurrencyCode(column(columns, 0))
+                    .targetCurrencyCode(column(columns, 1))
+                    .rate(columns.length == 3 ? column(columns, 2) : null)
+                    .build();
+        }
+
+        private static String column(String[] columns, int index) {
+            return index < columns.length ? columns[index].trim() : null;
+        }
+    }
+
+    private static final class JsonReader extends ExchangeRateImportReader {
+
+        private final MappingIterator<ExchangeRateCreateRequest> rows;
+
+        private JsonReader(MappingIterator<ExchangeRateCreateRequest> rows, int maxRows) {
+            super(maxRows);
+            this.rows = rows;
+        }
+
+        @Override
+        protected ExchangeRateCreateRequest readRow() {
+            try {
+                return rows.hasNextValue() ? rows.nextValue() : null;
+            } catch (JacksonException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.pulsar.currency.controller.exchange;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Parses the parts of {@code /exchangeRate/*} requests that the servlet API doesn't:
+ * the pair of codes in the URI and the form body of a PATCH request.
+ */
+public final class ExchangeRateRequestParser {
+
+    private static final Pattern CODES_PATTERN =
+            Pattern.compile("^/exchangeRate/(?<basecode>[a-zA-Z]{3})(?<targetcode>[a-zA-Z]{3})$");
+    private static final Pattern HISTORY_CODES_PATTERN =
+            Pattern.compile("^/exchangeRate/(?<basecode>[a-zA-Z]{3})(?<targetcode>[a-zA-Z]{3})/history$");
+
+    public CodePair parseCodes(String uri) {
+        return parseCodes(CODES_PATTERN, uri);
+    }
+
+    /**
+     * Codes of a {@code /exchangeRate/XXXYYY/history} request, {@link CodePair#EMPTY} for any other URI.
+     */
+    public CodePair parseHistoryCodes(String uri) {
+        return parseCodes(HISTORY_CODES_PATTERN, uri);
+    }
+
+    /**
+     * Accepts an ISO-8601 instant, a date-time with an offset or a date, which means its start in UTC.
+     *
+     * @return {@code null} for {@code null}
+     * @throws IllegalArgumentException if the value is none of those
+     */
+    public Instant parseInstant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant();
+            }
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid timestamp: " + value, e);
+        }
+    }
+
+    private static CodePair parseCodes(Pattern pattern, String uri) {
+        Matcher matcher = pattern.matcher(uri);
+        return matcher.matches()
+                ? new CodePair(matcher.group("basecode"), matcher.group("targetcode"))
+                : CodePair.EMPTY;
+    }
+
+    public Map<String, String> parseForm(byte[] body) {
+        Map<String, String> params = new HashMap<>();
+        String[] pairs = new String(body, StandardCharsets.UTF_8).split("&");
+
+        for (String pair : pairs) {
+            String[] keyValue = pair.split("=");
+            if (keyValue.length == 2) {
+                params.put(keyValue[0], keyValue[1]);
+            }
+        }
+
+        return params;
+    }
+
+    public record CodePair(String baseCode, String targetCode) {
+
+        static final CodePair EMPTY = new CodePair(null, null);
+    }
+}
@@ -4,48 +4,165 @@ import jakarta.servlet.ServletConfig;
 import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.controller.AsyncHttpServlet;
+import org.pulsar.currency.controller.ContentNegotiation;
+import org.pulsar.currency.controller.PreRenderedResponse;
 import org.pulsar.currency.controller.handler.ExceptionHandler;
+import org.pulsar.currency.dao.ExchangeRateQuery;
+import org.pulsar.currency.dto.ErrorResponse;
 import org.pulsar.currency.dto.exchange.ExchangeRateCreateRequest;
 import org.pulsar.currency.dto.exchange.ExchangeRateResponse;
+import org.pulsar.currency.service.DataVersion;
 import org.pulsar.currency.service.ExchangeRateService;
+import org.pulsar.currency.util.PropertiesUtils;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
 import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
+import static jakarta.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 import static jakarta.servlet.http.HttpServletResponse.SC_CREATED;
 import static jakarta.servlet.http.HttpServletResponse.SC_OK;
 
 
-@WebServlet("/exchangeRates")
-public class ExchangeRatesController extends HttpServlet {
+@WebServlet(value = "/exchangeRates", asyncSupported = true)
+public class ExchangeRatesController extends AsyncHttpServlet {
 
     private ObjectMapper objectMapper;
+    private ContentNegotiation contentNegotiation;
     private ExchangeRateService exchangeRateService;
     private ExceptionHandler exceptionHandler;
+    private DataVersion dataVersion;
+    private PreRenderedResponse listResponse;
+    private int defaultPageSize;
+    private int maxPageSize;
+
+    private static final Pattern CODE_PATTERN = Pattern.compile("[a-zA-Z]{3}");
+    private static final Pattern PAIR_PATTERN = Pattern.compile("[a-zA-Z]{6}");
 
     @Override
     public void init(ServletConfig config) throws ServletException {
+        super.init(config);
         ServletContext context = config.getServletContext();
         objectMapper = (ObjectMapper) context.getAttribute("objectMapper");
+        contentNegotiation = (ContentNegotiation) context.getAttribute("contentNegotiation");
         exchangeRateService = (ExchangeRateService) context.getAttribute("exchangeRateService");
         exceptionHandler = (ExceptionHandler) context.getAttribute("exceptionHandler");
+        dataVersion = (DataVersion) context.getAttribute("dataVersion");
+        listResponse = new PreRenderedResponse(exchangeRateService::getAll, objectMapper, dataVersion);
+        defaultPageSize = PropertiesUtils.getInt("exchange.page.default-size", 500);
+        maxPageSize = PropertiesUtils.getInt("exchange.page.max-size", 5000);
     }
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
-        try {
-            List<ExchangeRateResponse> exchangeRates = exchangeRateService.getAll();
+        // JSON by default, CBOR or Smile for the clients that ask for them
+        ContentNegotiation.Format format = contentNegotiation.negotiate(request);
+        response.setHeader("Vary", "Accept");
+        if (format == null) {
+            exceptionHandler.notAcceptable(response);
+            return;
+        }
+
+        if (!isPageRequest(request)) {
+            try {
+                listResponse.write(request, response, format);
+            } catch (Exception e) {
+                exceptionHandler.handle(e, response);
+            }
+            return;
+        }
+
+        ExchangeRateQuery query = buildQuery(request);
+        if (query == null) {
+            response.setStatus(SC_BAD_REQUEST);
+            objectMapper.writeValue(response.getWriter(), new ErrorResponse("Некорректные параметры запроса"));
+            return;
+        }
+        writePage(query, format, response);
+    }
+
+    /**
+     * Writes {@code {"exchangeRates": [...], "next": "EURUSD"}} row by row while the rows are read
+     * from the database, in the same structure for the binary formats. One row more than the limit is queried
+     * to tell whether there is a next page. A page has no validators, its ETag would only be known at the end.
+     * The error that replaces a failed page is JSON whatever format was negotiated.
+     */
+    private void writePage(ExchangeRateQuery query,
+                           ContentNegotiation.Format format,
+                           HttpServletResponse response) throws ServletException, IOException {
+        // closing the generator must neither write the missing end tokens nor flush or close the response,
+        // a failed page is then still only in the response buffer and can be replaced by the error
+        ObjectWriter writer = format.mapper().writer().without(StreamWriteFeature.AUTO_CLOSE_CONTENT,
+                StreamWriteFeature.AUTO_CLOSE_TARGET, StreamWriteFeature.FLUSH_PASSED_TO_STREAM);
+        try (JsonGenerator generator = writer.createGenerator(response.getOutputStream())) {
+            PageWriter pageWriter = new PageWriter(generator, query.limit() - 1);
             response.setStatus(SC_OK);
-            objectMapper.writeValue(response.getWriter(), exchangeRates);
+            response.setContentType(format.contentType());
+            generator.writeStartObject();
+            generator.writeName("exchangeRates");
+            generator.writeStartArray();
+            exchangeRateService.streamPage(query, pageWriter);
+            generator.writeEndArray();
+            if (pageWriter.next != null) {
+                generator.writeStringProperty("next", pageWriter.next);
+            }
+            generator.writeEndObject();
         } catch (Exception e) {
+            if (response.isCommitted()) {
+                throw new ServletException("Exchange rates page has been interrupted", e);
+            }
+            response.resetBuffer();
             exceptionHandler.handle(e, response);
         }
     }
 
+    private boolean isPageRequest(HttpServletRequest request) {
+        return request.getParameter("after") != null
+                || request.getParameter("limit") != null
+                || request.getParameter("base") != null
+                || request.getParameter("target") != null;
+    }
+
+    private ExchangeRateQuery buildQuery(HttpServletRequest request) {
+        String base = request.getParameter("base");
+        String target = request.getParameter("target");
+        String after = request.getParameter("after");
+        String limitParameter = request.getParameter("limit");
+
+        if ((base != null && !CODE_PATTERN.matcher(base).matches())
+                || (target != null && !CODE_PATTERN.matcher(target).matches())
+                || (after != null && !PAIR_PATTERN.matcher(after).matches())) {
+            return null;
+        }
+
+        int limit = defaultPageSize;
+        if (limitParameter != null) {
+            try {
+                limit = Integer.parseInt(limitParameter);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (limit < 1 || limit > maxPageSize) {
+                return null;
+            }
+        }
+
+        return ExchangeRateQuery.builder()
+                .baseCode(base != null ? base.toUpperCase() : null)
+                .targetCode(target != null ? target.toUpperCase() : null)
+                .afterBaseCode(after != null ? after.substring(0, 3).toUpperCase() : null)
+                .afterTargetCode(after != null ? after.substring(3).toUpperCase() : null)
+                .limit(limit + 1)
+                .build();
+    }
+
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         ExchangeRateCreateRequest createRequest = buildCreateRequest(request);
@@ -58,6 +175,30 @@ public class ExchangeRatesController extends HttpServlet {
         }
     }
 
+    private static final class PageWriter implements Consumer<ExchangeRateResponse> {
+
+        private final JsonGenerator generator;
+        private final int limit;
+        private int count;
+        private ExchangeRateResponse last;
+        private String next;
+
+        private PageWriter(JsonGenerator generator, int limit) {
+            this.generator = generator;
+            this.limit = limit;
+        }
+
+        @Override
+        public void accept(ExchangeRateResponse exchangeRate) {
+            if (count++ < limit) {
+                generator.writePOJO(exchangeRate);
+                last = exchangeRate;
+            } else {
+                next = last.baseCurrency().code() + last.targetCurrency().code();
+            }
+        }
+    }
+
     private ExchangeRateCreateRequest buildCreateRequest(HttpServletRequest request) {
         String baseCurrencyCode = request.getParameter("baseCurrencyCode");
         String targetCurrencyCode = request.getParameter("targetCurrencyCode");
@@ -3,55 +3,107 @@ package org.pulsar.currency.controller.handler;
 import jakarta.servlet.http.HttpServletResponse;
 import org.pulsar.currency.dto.ErrorResponse;
 import org.pulsar.currency.exception.DatabaseException;
+import org.pulsar.currency.exception.OverloadedException;
 import org.pulsar.currency.exception.currency.CurrencyAlreadyExistsException;
 import org.pulsar.currency.exception.currency.CurrencyNotFoundException;
 import org.pulsar.currency.exception.exchange.ExchangeRateAlreadyExistsException;
 import org.pulsar.currency.exception.exchange.ExchangeRateNotFoundException;
+import org.pulsar.currency.metrics.Counter;
+import org.pulsar.currency.metrics.MetricsRegistry;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static jakarta.servlet.http.HttpServletResponse.*;
 
+/**
+ * Error bodies are rendered once per message: the fixed ones up front, the ones naming currencies
+ * the first time they are sent, up to {@value #MAX_RENDERED_BODIES} of them. They are always JSON and
+ * are written to the output stream, so that a controller that started a body in a negotiated format
+ * can still replace it with an error.
+ */
 public class ExceptionHandler {
 
+    private static final int MAX_RENDERED_BODIES = 4096;
+    private static final HandledError BAD_REQUEST = new HandledError(SC_BAD_REQUEST, "Отсутствует один или несколько параметров");
+    private static final HandledError NOT_ACCEPTABLE = new HandledError(SC_NOT_ACCEPTABLE, "Запрошенный формат ответа не поддерживается");
+    private static final HandledError OVERLOADED = new HandledError(SC_SERVICE_UNAVAILABLE, "Сервер перегружен, повторите запрос позже");
+    private static final HandledError DATABASE_ERROR = new HandledError(SC_INTERNAL_SERVER_ERROR, "Ошибка базы данных");
+    private static final HandledError SERVER_ERROR = new HandledError(SC_INTERNAL_SERVER_ERROR, "Ошибка сервера");
+
     private final ObjectMapper objectMapper;
+    private final MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    private final Map<String, byte[]> renderedBodies = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Counter> handledCounters = new ConcurrentHashMap<>();
 
     public ExceptionHandler(ObjectMapper objectMapper) {
         this.objectMapper = objectMapper;
+        List.of(BAD_REQUEST, NOT_ACCEPTABLE, OVERLOADED, DATABASE_ERROR, SERVER_ERROR).forEach(error -> body(error.message()));
     }
 
     public void handle(Exception e, HttpServletResponse response) throws IOException {
-        switch (e) {
-            case IllegalArgumentException exception ->
-                    sendError("Отсутствует один или несколько параметров", SC_BAD_REQUEST, response);
+        HandledError error = resolve(e);
+        handledCounters.computeIfAbsent(e == null ? Void.class : e.getClass(), type ->
+                metricsRegistry.counter("handled_exceptions_total", "Exceptions handled by ExceptionHandler",
+                        "type", e == null ? "null" : type.getSimpleName())).increment();
+        sendError(error.message(), error.status(), response);
+    }
+
+    /**
+     * Answers a request none of whose acceptable formats can be produced.
+     */
+    public void notAcceptable(HttpServletResponse response) throws IOException {
+        sendError(NOT_ACCEPTABLE.message(), NOT_ACCEPTABLE.status(), response);
+    }
+
+    public HandledError resolve(Exception e) {
+        return switch (e) {
+            case IllegalArgumentException exception -> BAD_REQUEST;
             case CurrencyAlreadyExistsException exception -> {
                 String message = "Валюта с кодом '%s' уже существует".formatted(exception.getCurrencyCode());
-                sendError(message, SC_CONFLICT, response);
+                yield new HandledError(SC_CONFLICT, message);
             }
             case CurrencyNotFoundException exception -> {
                 String message = "Валюта с кодом '%s' не найдена".formatted(exception.getCurrencyCode());
-                sendError(message, SC_NOT_FOUND, response);
+                yield new HandledError(SC_NOT_FOUND, message);
             }
             case ExchangeRateAlreadyExistsException exception -> {
                 String message = "Валютная пара с кодами ('%s', '%s') уже существует"
                         .formatted(exception.getBaseCurrencyCode(), exception.getTargetCurrencyCode());
-                sendError(message, SC_CONFLICT, response);
+                yield new HandledError(SC_CONFLICT, message);
             }
             case ExchangeRateNotFoundException exception -> {
                 String message = "Валютная пара с кодами ('%s', '%s') не найдена"
                         .formatted(exception.getBaseCurrencyCode(), exception.getTargetCurrencyCode());
-                sendError(message, SC_NOT_FOUND, response);
+                yield new HandledError(SC_NOT_FOUND, message);
             }
-            case DatabaseException exception ->
-                    sendError("Ошибка базы данных", SC_INTERNAL_SERVER_ERROR, response);
-            case null, default -> sendError("Ошибка сервера", SC_INTERNAL_SERVER_ERROR, response);
-        }
+            case OverloadedException exception -> OVERLOADED;
+            case DatabaseException exception -> DATABASE_ERROR;
+            case null, default -> SERVER_ERROR;
+        };
     }
 
     private void sendError(String message, int status, HttpServletResponse response) throws IOException {
-        ErrorResponse error = new ErrorResponse(message);
+        byte[] body = body(message);
         response.setStatus(status);
-        objectMapper.writeValue(response.getWriter(), error);
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private byte[] body(String message) {
+        byte[] body = renderedBodies.get(message);
+        if (body == null) {
+            body = objectMapper.writeValueAsBytes(new ErrorResponse(message));
+            if (renderedBodies.size() < MAX_RENDERED_BODIES) {
+                renderedBodies.put(message, body);
+            }
+        }
+        return body;
     }
 }
@@ -0,0 +1,4 @@
+package org.pulsar.currency.controller.handler;
+
+public record HandledError(int status, String message) {
+}
@@ -0,0 +1,67 @@
+package org.pulsar.currency.dao;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Announces data changes to the other instances with {@code pg_notify}. Notifications are delivered
+ * when the transaction commits and not at all if it rolls back, so an announced change is always visible.
+ * Single-row writes announce themselves in their own statement, see {@link #notifyCall}.
+ */
+public class ChangeNotifier {
+
+    public static final String CHANNEL = "data_changes";
+
+    // a transaction changing more keys than this announces a single ALL instead
+    private static final int MAX_KEYS = 100;
+
+    private static final String PUBLISH = """
+            SELECT pg_notify('%s', concat_ws(':', ?, key, nextval('data_change_seq'), ?))
+            FROM unnest(?::text[]) AS key
+            """.formatted(CHANNEL);
+
+    private final String nodeId;
+
+    public ChangeNotifier(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public static ChangeNotifier withRandomNodeId() {
+        return new ChangeNotifier(UUID.randomUUID().toString());
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * SQL expression announcing a change of the given kind, with one parameter for the node id.
+     */
+    static String notifyCall(String kind, String keyExpression) {
+        return "pg_notify('%s', concat_ws(':', '%s', %s, nextval('data_change_seq'), ?))"
+                .formatted(CHANNEL, kind, keyExpression);
+    }
+
+    /**
+     * Announces the keys changed by the current transaction of the connection.
+     */
+    void publish(Connection connection, String kind, Collection<String> keys) throws SQLException {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        Collection<String> announced = keys.size() > MAX_KEYS ? List.of(DataChange.ALL) : keys;
+        try (PreparedStatement statement = connection.prepareStatement(PUBLISH)) {
+            Array array = connection.createArrayOf("text", announced.toArray());
+            statement.setString(1, kind);
+            statement.setString(2, nodeId);
+            statement.setArray(3, array);
+            statement.execute();
+        }
+    }
+}
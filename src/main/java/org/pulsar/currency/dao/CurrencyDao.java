@@ -1,8 +1,13 @@
 package org.pulsar.currency.dao;
 
 import lombok.extern.slf4j.Slf4j;
+import org.postgresql.util.PSQLState;
 import org.pulsar.currency.exception.DatabaseException;
+import org.pulsar.currency.exception.currency.CurrencyAlreadyExistsException;
+import org.pulsar.currency.metrics.Histogram;
+import org.pulsar.currency.metrics.MetricsRegistry;
 import org.pulsar.currency.model.Currency;
+import org.pulsar.currency.util.LogSampler;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -18,24 +23,51 @@ import java.util.UUID;
 @Slf4j
 public class CurrencyDao {
 
-    private final DataSource dataSource;
+    private final DataSource writeDataSource;
+    private final DataSource readDataSource;
+    private final ChangeNotifier changeNotifier;
+
+    private static final Histogram FIND_ALL_TIMER = timer("findAll");
+    private static final Histogram FIND_BY_CODE_TIMER = timer("findByCode");
+    private static final Histogram SAVE_TIMER = timer("save");
+
+    private static final LogSampler LOOKUP_LOG = LogSampler.forLookups();
 
     private static final String FIND_ALL = "SELECT id, code, full_name, sign FROM currencies";
     private static final String FIND_BY_CODE = FIND_ALL + " WHERE code = ?";
     private static final String SAVE = """
-            INSERT INTO currencies (id, code, full_name, sign)
-            VALUES
-            (?, ?, ?, ?)
-            """;
+            WITH written AS (
+                INSERT INTO currencies (id, code, full_name, sign)
+                VALUES
+                (?, ?, ?, ?)
+                RETURNING code
+            )
+            SELECT %s AS notified FROM written
+            """.formatted(ChangeNotifier.notifyCall(DataChange.CURRENCY, "code"));
+    private static final String UNIQUE_CONSTRAINT = PSQLState.UNIQUE_VIOLATION.getState();
 
     public CurrencyDao(DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(dataSource, ChangeNotifier.withRandomNodeId());
+    }
+
+    public CurrencyDao(DataSource dataSource, ChangeNotifier changeNotifier) {
+        this(dataSource, dataSource, changeNotifier);
+    }
+
+    /**
+     * Finders read from {@code readDataSource}, writes go to {@code writeDataSource}.
+     */
+    public CurrencyDao(DataSource writeDataSource, DataSource readDataSource, ChangeNotifier changeNotifier) {
+        this.writeDataSource = writeDataSource;
+        this.readDataSource = readDataSource;
+        this.changeNotifier = changeNotifier;
     }
 
     public List<Currency> findAll() {
+        long start = System.nanoTime();
         log.info("Getting currencies from a database...");
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = readDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(FIND_ALL)) {
 
             ResultSet resultSet = statement.executeQuery();
@@ -46,6 +78,8 @@ public class CurrencyDao {
         } catch (SQLException e) {
             log.error("Error when receiving currencies", e);
             throw new DatabaseException(e);
+        } finally {
+            FIND_ALL_TIMER.recordSince(start);
         }
     }
 
@@ -58,9 +92,10 @@ public class CurrencyDao {
     }
 
     public Optional<Currency> findByCode(String code) {
-        log.info("Finding currency by '{}' code...", code);
+        long start = System.nanoTime();
+        log.debug("Finding currency by '{}' code...", code);
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = readDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(FIND_BY_CODE)) {
             statement.setString(1, code);
             ResultSet resultSet = statement.executeQuery();
@@ -69,30 +104,41 @@ public class CurrencyDao {
         } catch (SQLException e) {
             log.error("Error when receiving currency with code '{}'", code, e);
             throw new DatabaseException(e);
+        } finally {
+            FIND_BY_CODE_TIMER.recordSince(start);
+            LOOKUP_LOG.logLookup(log, "findByCode", start);
         }
     }
 
     private Optional<Currency> extractSingle(ResultSet resultSet) throws SQLException {
         if (resultSet.next()) {
-            log.info("Currency has been found");
+            log.debug("Currency has been found");
             return Optional.of(mapCurrency(resultSet));
         }
-        log.info("Currency hasn't been found");
+        log.debug("Currency hasn't been found");
         return Optional.empty();
     }
 
     public void save(Currency currency) {
+        long start = System.nanoTime();
         log.info("Saving currency to the database...");
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = writeDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(SAVE)) {
             configureStatement(statement, currency);
 
-            statement.executeUpdate();
+            statement.executeQuery();
             log.info("Currency with id '{}' has been successfully saved", currency.getId());
         } catch (SQLException e) {
+            // the existence check may have been answered by a replica that is behind
+            if (UNIQUE_CONSTRAINT.equals(e.getSQLState())) {
+                log.error("Currency with code '{}' already exists", currency.getCode());
+                throw new CurrencyAlreadyExistsException(currency.getCode());
+            }
             log.error("Error while saving currency with id '{}'", currency.getId(), e);
             throw new DatabaseException(e);
+        } finally {
+            SAVE_TIMER.recordSince(start);
         }
     }
 
@@ -101,6 +147,7 @@ public class CurrencyDao {
         statement.setString(2, currency.getCode());
         statement.setString(3, currency.getFullName());
         statement.setString(4, currency.getSign());
+        statement.setString(5, changeNotifier.nodeId());
     }
 
     private Currency mapCurrency(ResultSet resultSet) throws SQLException {
@@ -111,4 +158,9 @@ public class CurrencyDao {
                 .sign(resultSet.getString("sign"))
                 .build();
     }
+
+    private static Histogram timer(String method) {
+        return MetricsRegistry.getInstance().histogram("dao_query_seconds", "DAO method execution time",
+                "dao", "CurrencyDao", "method", method);
+    }
 }
@@ -0,0 +1,43 @@
+package org.pulsar.currency.dao;
+
+import java.util.Optional;
+
+/**
+ * A change announced on the {@link ChangeNotifier#CHANNEL} channel, sent as {@code kind:key:sequence:nodeId}.
+ * The key is a currency code, a pair {@code BASE/TARGET} or {@link #ALL} when too much has changed to list it.
+ * The sequence is a database-wide version of the data, it grows with every announced change.
+ */
+public record DataChange(String kind, String key, long sequence, String nodeId) {
+
+    public static final String RATE = "rate";
+    public static final String CURRENCY = "currency";
+    public static final String ALL = "*";
+
+    public static Optional<DataChange> parse(String payload) {
+        String[] parts = payload.split(":", 4);
+        if (parts.length != 4) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(new DataChange(parts[0], parts[1], Long.parseLong(parts[2]), parts[3]));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static String pairKey(String baseCode, String targetCode) {
+        return baseCode + "/" + targetCode;
+    }
+
+    public boolean isAll() {
+        return ALL.equals(key);
+    }
+
+    /**
+     * @return base and target codes of a {@link #RATE} change
+     */
+    public String[] pair() {
+        return key.split("/", 2);
+    }
+}
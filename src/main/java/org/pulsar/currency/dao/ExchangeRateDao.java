@@ -5,24 +5,51 @@ import org.postgresql.util.PSQLState;
 import org.pulsar.currency.exception.currency.CurrencyNotFoundException;
 import org.pulsar.currency.exception.DatabaseException;
 import org.pulsar.currency.exception.exchange.ExchangeRateAlreadyExistsException;
+import org.pulsar.currency.metrics.Histogram;
+import org.pulsar.currency.metrics.MetricsRegistry;
 import org.pulsar.currency.model.Currency;
 import org.pulsar.currency.model.ExchangeRate;
+import org.pulsar.currency.util.LogSampler;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 
 @Slf4j
 public class ExchangeRateDao {
 
-    private final DataSource dataSource;
+    private static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final DataSource writeDataSource;
+    private final DataSource readDataSource;
+    private final int fetchSize;
+    private final ChangeNotifier changeNotifier;
+
+    private static final Histogram FIND_ALL_TIMER = timer("findAll");
+    private static final Histogram STREAM_TIMER = timer("stream");
+    private static final Histogram FIND_BY_CODES_TIMER = timer("findByCodes");
+    private static final Histogram FIND_CANDIDATES_TIMER = timer("findCandidates");
+    private static final Histogram FIND_CANDIDATES_AT_TIMER = timer("findCandidatesAt");
+    private static final Histogram SAVE_TIMER = timer("save");
+    private static final Histogram UPDATE_TIMER = timer("update");
+    private static final Histogram UPSERT_ALL_TIMER = timer("upsertAll");
+    private static final Histogram UPDATE_ALL_TIMER = timer("updateAll");
+    private static final Histogram FIND_BY_CODE_PAIRS_TIMER = timer("findByCodePairs");
+
+    private static final LogSampler LOOKUP_LOG = LogSampler.forLookups();
 
     private static final String COLUMNS = """
             er.id AS id, er.rate AS rate,
@@ -36,32 +63,109 @@ public class ExchangeRateDao {
             JOIN currencies tc ON er.target_currency_id = tc.id
             """.formatted(COLUMNS);
     private static final String FIND_BY_CODES = FIND_ALL + " WHERE bc.code = ? AND tc.code = ?";
-    private static final String SAVE = """
-            INSERT INTO exchange_rates
-            (id, base_currency_id, target_currency_id, rate)
-            VALUES
-            (?, (SELECT id FROM currencies WHERE code = ?), (SELECT id FROM currencies WHERE code = ?), ?)
+    private static final String FIND_BY_CODE_PAIRS = FIND_ALL + " WHERE (bc.code, tc.code) IN (%s)";
+    private static final String FIND_BY_CODE_PAIRS_AT = """
+            SELECT DISTINCT ON (h.base_currency_id, h.target_currency_id) %s
+            FROM exchange_rate_history AS h
+            JOIN exchange_rates er ON er.base_currency_id = h.base_currency_id AND er.target_currency_id = h.target_currency_id
+            JOIN currencies bc ON h.base_currency_id = bc.id
+            JOIN currencies tc ON h.target_currency_id = tc.id
+            WHERE (bc.code, tc.code) IN (%%s) AND h.valid_from <= ?
+            ORDER BY h.base_currency_id, h.target_currency_id, h.valid_from DESC, h.id DESC
+            """.formatted(COLUMNS.replace("er.rate AS rate", "h.rate AS rate"));
+    // every write also appends the new rate to the history, in the same statement
+    private static final String RECORD_HISTORY = """
+            INSERT INTO exchange_rate_history (base_currency_id, target_currency_id, rate)
+            SELECT base_currency_id, target_currency_id, rate FROM written
             """;
-    private static final String UPDATE = """
-            UPDATE exchange_rates
+    private static final String RECORD_HISTORY_CTE = "history AS (" + RECORD_HISTORY + ")";
+    /*
+     * One round trip for a create: the currencies are looked up once and the written row is returned with them.
+     * The outer left joins tell what went wrong: a missing currency or an existing pair.
+     */
+    private static final String SAVE = """
+            WITH bc AS (SELECT id, code, full_name, sign FROM currencies WHERE code = ?),
+                 tc AS (SELECT id, code, full_name, sign FROM currencies WHERE code = ?),
+                 written AS (
+                     INSERT INTO exchange_rates
+                     (id, base_currency_id, target_currency_id, rate)
+                     SELECT ?, bc.id, tc.id, ?
+                     FROM bc, tc
+                     ON CONFLICT (base_currency_id, target_currency_id) DO NOTHING
+                     RETURNING id, base_currency_id, target_currency_id, rate
+                 ),
+                 %s
+            SELECT er.id AS id, er.rate AS rate,
+                   bc.id AS bc_id, bc.code AS bc_code, bc.full_name AS bc_full_name, bc.sign AS bc_sign,
+                   tc.id AS tc_id, tc.code AS tc_code, tc.full_name AS tc_full_name, tc.sign AS tc_sign,
+                   CASE WHEN er.id IS NOT NULL THEN %s END AS notified
+            FROM (SELECT 1) AS request
+            LEFT JOIN bc ON true
+            LEFT JOIN tc ON true
+            LEFT JOIN written er ON true
+            """.formatted(RECORD_HISTORY_CTE, ChangeNotifier.notifyCall(DataChange.RATE, "bc.code || '/' || tc.code"));
+    private static final String UPDATE_RATE = """
+            UPDATE exchange_rates AS er
             SET rate = ?
-            WHERE base_currency_id = (SELECT id FROM currencies WHERE code = ?)
-            AND target_currency_id = (SELECT id FROM currencies WHERE code = ?)
-            """;
+            FROM currencies bc, currencies tc
+            WHERE er.base_currency_id = bc.id AND er.target_currency_id = tc.id
+            AND bc.code = ? AND tc.code = ?
+            RETURNING er.base_currency_id, er.target_currency_id, %s
+            """.formatted(COLUMNS);
+    private static final String UPDATE = """
+            WITH written AS (%s),
+                 %s
+            SELECT *, %s AS notified FROM written
+            """.formatted(UPDATE_RATE, RECORD_HISTORY_CTE,
+            ChangeNotifier.notifyCall(DataChange.RATE, "bc_code || '/' || tc_code"));
+    private static final String UPDATE_ALL = "WITH written AS (" + UPDATE_RATE + ") " + RECORD_HISTORY;
+
+    private static final String UPSERT = """
+            WITH written AS (
+                INSERT INTO exchange_rates
+                (id, base_currency_id, target_currency_id, rate)
+                SELECT ?, bc.id, tc.id, ?
+                FROM currencies bc, currencies tc
+                WHERE bc.code = ? AND tc.code = ?
+                ON CONFLICT (base_currency_id, target_currency_id) DO UPDATE SET rate = EXCLUDED.rate
+                RETURNING base_currency_id, target_currency_id, rate
+            )
+            """ + RECORD_HISTORY;
 
     private static final String BASE_CURRENCY_PREFIX = "bc";
     private static final String TARGET_CURRENCY_PREFIX = "tc";
     private static final String UNIQUE_CONSTRAINT = PSQLState.UNIQUE_VIOLATION.getState();
-    private static final String NOT_NULL_CONSTRAINT = PSQLState.NOT_NULL_VIOLATION.getState();
 
     public ExchangeRateDao(DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(dataSource, DEFAULT_FETCH_SIZE);
+    }
+
+    public ExchangeRateDao(DataSource dataSource, int fetchSize) {
+        this(dataSource, fetchSize, ChangeNotifier.withRandomNodeId());
+    }
+
+    public ExchangeRateDao(DataSource dataSource, int fetchSize, ChangeNotifier changeNotifier) {
+        this(dataSource, dataSource, fetchSize, changeNotifier);
+    }
+
+    /**
+     * Finders read from {@code readDataSource}, writes go to {@code writeDataSource}.
+     */
+    public ExchangeRateDao(DataSource writeDataSource,
+                           DataSource readDataSource,
+                           int fetchSize,
+                           ChangeNotifier changeNotifier) {
+        this.writeDataSource = writeDataSource;
+        this.readDataSource = readDataSource;
+        this.fetchSize = fetchSize;
+        this.changeNotifier = changeNotifier;
     }
 
     public List<ExchangeRate> findAll() {
+        long start = System.nanoTime();
         log.info("Getting all exchange rates from the database...");
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = readDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(FIND_ALL)) {
             ResultSet resultSet = statement.executeQuery();
             List<ExchangeRate> exchangeRates = extractList(resultSet);
@@ -71,9 +175,79 @@ public class ExchangeRateDao {
         } catch (SQLException e) {
             log.error("Error when receiving exchange rates from the database", e);
             throw new DatabaseException(e);
+        } finally {
+            FIND_ALL_TIMER.recordSince(start);
         }
     }
 
+    /**
+     * Passes the rates of the page to the consumer as they arrive. The rows are read through
+     * a server-side cursor, {@code fetchSize} at a time, so the page is never held in memory.
+     * Exceptions thrown by the consumer abort the query and are rethrown as is.
+     */
+    public void stream(ExchangeRateQuery query, Consumer<ExchangeRate> consumer) {
+        long start = System.nanoTime();
+        log.debug("Streaming exchange rates {}...", query);
+
+        List<String> parameters = new ArrayList<>();
+        String sql = pageSql(query, parameters);
+
+        try (Connection connection = readDataSource.getConnection()) {
+            // the PostgreSQL driver only uses a cursor inside a transaction
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(fetchSize);
+                int index = 1;
+                for (String parameter : parameters) {
+                    statement.setString(index++, parameter);
+                }
+                statement.setInt(index, query.limit());
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        consumer.accept(mapExchangeRate(resultSet));
+                    }
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            log.error("Error while streaming exchange rates {}", query, e);
+            throw new DatabaseException(e);
+        } finally {
+            STREAM_TIMER.recordSince(start);
+            LOOKUP_LOG.logLookup(log, "stream", start);
+        }
+    }
+
+    private String pageSql(ExchangeRateQuery query, List<String> parameters) {
+        List<String> conditions = new ArrayList<>();
+        if (query.baseCode() != null) {
+            conditions.add("bc.code = ?");
+            parameters.add(query.baseCode());
+        }
+        if (query.targetCode() != null) {
+            conditions.add("tc.code = ?");
+            parameters.add(query.targetCode());
+        }
+        if (query.afterBaseCode() != null && query.afterTargetCode() != null) {
+            conditions.add("(bc.code, tc.code) > (?, ?)");
+            parameters.add(query.afterBaseCode());
+            parameters.add(query.afterTargetCode());
+        }
+
+        StringBuilder sql = new StringBuilder(FIND_ALL);
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.append(" ORDER BY bc.code, tc.code LIMIT ?").toString();
+    }
+
     private List<ExchangeRate> extractList(ResultSet resultSet) throws SQLException {
         List<ExchangeRate> result = new ArrayList<>();
         while (resultSet.next()) {
@@ -83,9 +257,10 @@ public class ExchangeRateDao {
     }
 
     public Optional<ExchangeRate> findByCodes(String baseCode, String targetCode) {
-        log.info("Finding exchange rate with codes ('{}', '{}')...", baseCode, targetCode);
+        long start = System.nanoTime();
+        log.debug("Finding exchange rate with codes ('{}', '{}')...", baseCode, targetCode);
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = readDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(FIND_BY_CODES)) {
             statement.setString(1, baseCode);
             statement.setString(2, targetCode);
@@ -96,79 +271,320 @@ public class ExchangeRateDao {
         } catch (SQLException e) {
             log.error("Error while finding exchange rate with codes ('{}', '{}')", baseCode, targetCode);
             throw new DatabaseException(e);
+        } finally {
+            FIND_BY_CODES_TIMER.recordSince(start);
+            LOOKUP_LOG.logLookup(log, "findByCodes", start);
+        }
+    }
+
+    /**
+     * Fetches in one statement every rate that can take part in a conversion from the base
+     * to the target currency: the direct and reverse pairs and both legs through each pivot
+     * in either direction. Missing pairs are simply absent from the result.
+     */
+    public List<ExchangeRate> findCandidates(String baseCode, String targetCode, List<String> pivotCodes) {
+        long start = System.nanoTime();
+        log.debug("Finding candidate exchange rates for codes ('{}', '{}')...", baseCode, targetCode);
+
+        List<String[]> pairs = candidatePairs(baseCode, targetCode, pivotCodes);
+        String placeholders = String.join(", ", Collections.nCopies(pairs.size(), "(?, ?)"));
+
+        try (Connection connection = readDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_CODE_PAIRS.formatted(placeholders))) {
+            int index = 1;
+            for (String[] pair : pairs) {
+                statement.setString(index++, pair[0]);
+                statement.setString(index++, pair[1]);
+            }
+
+            ResultSet resultSet = statement.executeQuery();
+            List<ExchangeRate> exchangeRates = extractList(resultSet);
+
+            log.debug("{} candidate exchange rates have been found", exchangeRates.size());
+            return exchangeRates;
+        } catch (SQLException e) {
+            log.error("Error while finding candidate exchange rates for codes ('{}', '{}')", baseCode, targetCode, e);
+            throw new DatabaseException(e);
+        } finally {
+            FIND_CANDIDATES_TIMER.recordSince(start);
+            LOOKUP_LOG.logLookup(log, "findCandidates", start);
+        }
+    }
+
+    public List<ExchangeRate> findByCodePairs(List<String[]> pairs) {
+        long start = System.nanoTime();
+        log.debug("Finding {} exchange rates by codes...", pairs.size());
+
+        String placeholders = String.join(", ", Collections.nCopies(pairs.size(), "(?, ?)"));
+        try (Connection connection = readDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_CODE_PAIRS.formatted(placeholders))) {
+            int index = 1;
+            for (String[] pair : pairs) {
+                statement.setString(index++, pair[0]);
+                statement.setString(index++, pair[1]);
+            }
+
+            ResultSet resultSet = statement.executeQuery();
+            return extractList(resultSet);
+        } catch (SQLException e) {
+            log.error("Error while finding exchange rates by codes", e);
+            throw new DatabaseException(e);
+        } finally {
+            FIND_BY_CODE_PAIRS_TIMER.recordSince(start);
+            LOOKUP_LOG.logLookup(log, "findByCodePairs", start);
+        }
+    }
+
+    /**
+     * Same as {@link #findCandidates} but with the rates that were in effect at the given moment.
+     */
+    public List<ExchangeRate> findCandidatesAt(String baseCode, String targetCode, List<String> pivotCodes, Instant at) {
+        long start = System.nanoTime();
+        log.debug("Finding candidate exchange rates for codes ('{}', '{}') at {}...", baseCode, targetCode, at);
+
+        List<String[]> pairs = candidatePairs(baseCode, targetCode, pivotCodes);
+        String placeholders = String.join(", ", Collections.nCopies(pairs.size(), "(?, ?)"));
+
+        try (Connection connection = readDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_BY_CODE_PAIRS_AT.formatted(placeholders))) {
+            int index = 1;
+            for (String[] pair : pairs) {
+                statement.setString(index++, pair[0]);
+                statement.setString(index++, pair[1]);
+            }
+            statement.setObject(index, ExchangeRateHistoryDao.toTimestamp(at));
+
+            ResultSet resultSet = statement.executeQuery();
+            return extractList(resultSet);
+        } catch (SQLException e) {
+            log.error("Error while finding candidate exchange rates for codes ('{}', '{}') at {}", baseCode, targetCode, at, e);
+            throw new DatabaseException(e);
+        } finally {
+            FIND_CANDIDATES_AT_TIMER.recordSince(start);
+            LOOKUP_LOG.logLookup(log, "findCandidatesAt", start);
+        }
+    }
+
+    /**
+     * Pairs, as {@code [baseCode, targetCode]}, that can take part in a conversion through the given pivots.
+     */
+    public static List<String[]> candidatePairs(String baseCode, String targetCode, List<String> pivotCodes) {
+        Set<String> keys = new LinkedHashSet<>();
+        List<String[]> pairs = new ArrayList<>();
+        addPair(pairs, keys, baseCode, targetCode);
+        addPair(pairs, keys, targetCode, baseCode);
+
+        for (String pivotCode : pivotCodes) {
+            if (pivotCode.equals(baseCode) || pivotCode.equals(targetCode)) {
+                continue;
+            }
+            addPair(pairs, keys, pivotCode, baseCode);
+            addPair(pairs, keys, baseCode, pivotCode);
+            addPair(pairs, keys, pivotCode, targetCode);
+            addPair(pairs, keys, targetCode, pivotCode);
+        }
+        return pairs;
+    }
+
+    private static void addPair(List<String[]> pairs, Set<String> keys, String baseCode, String targetCode) {
+        if (keys.add(baseCode + targetCode)) {
+            pairs.add(new String[]{baseCode, targetCode});
         }
     }
 
     private Optional<ExchangeRate> extractSingle(ResultSet resultSet) throws SQLException {
         if (resultSet.next()) {
-            log.info("Exchange rate has been found");
+            log.debug("Exchange rate has been found");
             return Optional.of(mapExchangeRate(resultSet));
         }
-        log.info("Exchange rate hasn't been found");
+        log.debug("Exchange rate hasn't been found");
         return Optional.empty();
     }
 
-    public void save(ExchangeRate exchangeRate) {
-        log.info("Saving exchange rate with codes ('{}', '{}')...",
-                exchangeRate.getBaseCurrency(),
-                exchangeRate.getTargetCurrency());
+    /**
+     * @return the saved rate together with its currencies
+     * @throws CurrencyNotFoundException if one of the currencies doesn't exist
+     * @throws ExchangeRateAlreadyExistsException if the pair already exists
+     */
+    public ExchangeRate save(ExchangeRate exchangeRate) {
+        long start = System.nanoTime();
+        String baseCode = exchangeRate.getBaseCurrency().getCode();
+        String targetCode = exchangeRate.getTargetCurrency().getCode();
+        log.info("Saving exchange rate with codes ('{}', '{}')...", baseCode, targetCode);
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = writeDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(SAVE)) {
             configureStatement(statement, exchangeRate);
 
-            statement.executeUpdate();
-            log.info("Exchange rate with codes ('{}', '{}') has been successfully saved",
-                    exchangeRate.getBaseCurrency(),
-                    exchangeRate.getTargetCurrency());
+            ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            if (resultSet.getObject("bc_id") == null) {
+                log.error("Base currency '{}' doesn't exist in the database", baseCode);
+                throw new CurrencyNotFoundException(baseCode);
+            } else if (resultSet.getObject("tc_id") == null) {
+                log.error("Target currency '{}' doesn't exist in the database", targetCode);
+                throw new CurrencyNotFoundException(targetCode);
+            } else if (resultSet.getObject("id") == null) {
+                log.error("A currency pair with codes ('{}', '{}') already exists", baseCode, targetCode);
+                throw new ExchangeRateAlreadyExistsException(baseCode, targetCode);
+            }
+
+            log.info("Exchange rate with codes ('{}', '{}') has been successfully saved", baseCode, targetCode);
+            return mapExchangeRate(resultSet);
         } catch (SQLException e) {
-            handleException(e, exchangeRate);
+            throw handleException(e, exchangeRate);
+        } finally {
+            SAVE_TIMER.recordSince(start);
         }
     }
 
     private void configureStatement(PreparedStatement statement, ExchangeRate exchangeRate) throws SQLException {
-        statement.setObject(1, exchangeRate.getId());
-        statement.setString(2, exchangeRate.getBaseCurrency().getCode());
-        statement.setString(3, exchangeRate.getTargetCurrency().getCode());
+        statement.setString(1, exchangeRate.getBaseCurrency().getCode());
+        statement.setString(2, exchangeRate.getTargetCurrency().getCode());
+        statement.setObject(3, exchangeRate.getId());
         statement.setBigDecimal(4, exchangeRate.getRate());
+        statement.setString(5, changeNotifier.nodeId());
     }
 
-    public void update(ExchangeRate exchangeRate) {
-        log.info("Updating exchange rate with id '{}'", exchangeRate.getId());
+    /**
+     * @return the updated rate together with its currencies, empty if the pair doesn't exist
+     */
+    public Optional<ExchangeRate> update(ExchangeRate exchangeRate) {
+        long start = System.nanoTime();
+        String baseCode = exchangeRate.getBaseCurrency().getCode();
+        String targetCode = exchangeRate.getTargetCurrency().getCode();
+        log.info("Updating exchange rate with codes ('{}', '{}')...", baseCode, targetCode);
 
-        try (Connection connection = dataSource.getConnection();
+        try (Connection connection = writeDataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(UPDATE)) {
             statement.setBigDecimal(1, exchangeRate.getRate());
-            statement.setString(2, exchangeRate.getBaseCurrency().getCode());
-            statement.setString(3, exchangeRate.getTargetCurrency().getCode());
+            statement.setString(2, baseCode);
+            statement.setString(3, targetCode);
+            statement.setString(4, changeNotifier.nodeId());
 
-            statement.executeUpdate();
-            log.info("Exchange rate with codes ('{}', '{}') has been successfully updated",
-                    exchangeRate.getBaseCurrency(),
-                    exchangeRate.getTargetCurrency());
+            ResultSet resultSet = statement.executeQuery();
+            return extractSingle(resultSet);
         } catch (SQLException e) {
-            handleException(e, exchangeRate);
+            throw handleException(e, exchangeRate);
+        } finally {
+            UPDATE_TIMER.recordSince(start);
         }
     }
 
-    private void handleException(SQLException e, ExchangeRate exchangeRate) {
+    /**
+     * Inserts new pairs and updates the rate of existing ones in a single transaction,
+     * sending the statements in batches. A pair whose currency doesn't exist is skipped.
+     *
+     * @return for every rate, in order, whether it has been written
+     */
+    public boolean[] upsertAll(List<ExchangeRate> exchangeRates, int batchSize) {
+        long start = System.nanoTime();
+        log.info("Upserting {} exchange rates...", exchangeRates.size());
+
+        try {
+            boolean[] written = writeAll(UPSERT, exchangeRates, batchSize, (statement, exchangeRate) -> {
+                statement.setObject(1, exchangeRate.getId());
+                statement.setBigDecimal(2, exchangeRate.getRate());
+                statement.setString(3, exchangeRate.getBaseCurrency().getCode());
+                statement.setString(4, exchangeRate.getTargetCurrency().getCode());
+            });
+            log.info("{} exchange rates have been upserted", exchangeRates.size());
+            return written;
+        } catch (SQLException e) {
+            log.error("Error while upserting exchange rates, nothing has been written", e);
+            throw new DatabaseException(e);
+        } finally {
+            UPSERT_ALL_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Updates the rates of existing pairs in a single transaction, sending the statements in batches.
+     *
+     * @return for every rate, in order, whether its pair exists and has been updated
+     */
+    public boolean[] updateAll(List<ExchangeRate> exchangeRates, int batchSize) {
+        long start = System.nanoTime();
+        log.info("Updating {} exchange rates...", exchangeRates.size());
+
+        try {
+            return writeAll(UPDATE_ALL, exchangeRates, batchSize, (statement, exchangeRate) -> {
+                statement.setBigDecimal(1, exchangeRate.getRate());
+                statement.setString(2, exchangeRate.getBaseCurrency().getCode());
+                statement.setString(3, exchangeRate.getTargetCurrency().getCode());
+            });
+        } catch (SQLException e) {
+            log.error("Error while updating exchange rates, nothing has been written", e);
+            throw new DatabaseException(e);
+        } finally {
+            UPDATE_ALL_TIMER.recordSince(start);
+        }
+    }
+
+    private boolean[] writeAll(String sql,
+                               List<ExchangeRate> exchangeRates,
+                               int batchSize,
+                               StatementBinder binder) throws SQLException {
+        boolean[] written = new boolean[exchangeRates.size()];
+        try (Connection connection = writeDataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int batchStart = 0;
+                for (int i = 0; i < exchangeRates.size(); i++) {
+                    binder.bind(statement, exchangeRates.get(i));
+                    statement.addBatch();
+
+                    if (i - batchStart + 1 == batchSize || i == exchangeRates.size() - 1) {
+                        int[] counts = statement.executeBatch();
+                        for (int j = 0; j < counts.length; j++) {
+                            written[batchStart + j] = counts[j] > 0 || counts[j] == Statement.SUCCESS_NO_INFO;
+                        }
+                        batchStart = i + 1;
+                    }
+                }
+                changeNotifier.publish(connection, DataChange.RATE, writtenPairs(exchangeRates, written));
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+        return written;
+    }
+
+    private static List<String> writtenPairs(List<ExchangeRate> exchangeRates, boolean[] written) {
+        List<String> pairs = new ArrayList<>();
+        for (int i = 0; i < written.length; i++) {
+            if (written[i]) {
+                ExchangeRate exchangeRate = exchangeRates.get(i);
+                pairs.add(DataChange.pairKey(exchangeRate.getBaseCurrency().getCode(),
+                        exchangeRate.getTargetCurrency().getCode()));
+            }
+        }
+        return pairs;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+
+        void bind(PreparedStatement statement, ExchangeRate exchangeRate) throws SQLException;
+    }
+
+    private RuntimeException handleException(SQLException e, ExchangeRate exchangeRate) {
         String sqlState = e.getSQLState();
         if (sqlState.equals(UNIQUE_CONSTRAINT)) {
             log.error("A currency pair with codes ('{}', '{}') already exists",
                     exchangeRate.getBaseCurrency(),
                     exchangeRate.getTargetCurrency());
-            throw new ExchangeRateAlreadyExistsException(
+            return new ExchangeRateAlreadyExistsException(
                     exchangeRate.getBaseCurrency().getCode(), exchangeRate.getTargetCurrency().getCode());
-        } else if (sqlState.equals(NOT_NULL_CONSTRAINT)) {
-            log.error("One of the currencies doesn't exist in the database ('{}', '{}')",
-                    exchangeRate.getBaseCurrency(),
-                    exchangeRate.getTargetCurrency());
-            throw new CurrencyNotFoundException("");
         } else {
             log.error("Error while saving/updating exchange rate with codes ('{}', '{}')",
                     exchangeRate.getBaseCurrency(),
                     exchangeRate.getTargetCurrency(), e);
-            throw new DatabaseException(e);
+            return new DatabaseException(e);
         }
     }
 
@@ -189,4 +605,9 @@ public class ExchangeRateDao {
                 .sign(resultSet.getString(prefix + "_sign"))
                 .build();
     }
+
+    private static Histogram timer(String method) {
+        return MetricsRegistry.getInstance().histogram("dao_query_seconds", "DAO method execution time",
+                "dao", "ExchangeRateDao", "method", method);
+    }
 }
@@ -0,0 +1,190 @@
+package org.pulsar.currency.dao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.exception.DatabaseException;
+import org.pulsar.currency.metrics.Histogram;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.model.ExchangeRateChange;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+
+@Slf4j
+public class ExchangeRateHistoryDao {
+
+    private final DataSource dataSource;
+
+    private static final Histogram FIND_SINCE_TIMER = timer("findSince");
+    private static final Histogram FIND_COMMITTED_SINCE_TIMER = timer("findCommittedSince");
+    private static final Histogram CURRENT_POSITION_TIMER = timer("currentPosition");
+    private static final Histogram FIND_LATEST_AT_TIMER = timer("findLatestAt");
+    private static final Histogram FIND_RANGE_TIMER = timer("findRange");
+
+    private static final String COLUMNS = """
+            h.id AS id, bc.code AS base_code, tc.code AS target_code, h.rate AS rate, h.valid_from AS valid_from
+            """;
+    private static final String JOINS = """
+            FROM exchange_rate_history AS h
+            JOIN currencies bc ON h.base_currency_id = bc.id
+            JOIN currencies tc ON h.target_currency_id = tc.id
+            """;
+    private static final String FIND_ALL = "SELECT " + COLUMNS + JOINS;
+    private static final String FIND_SINCE = FIND_ALL + " WHERE h.valid_from > ? ORDER BY h.valid_from, h.id";
+    private static final String FIND_COMMITTED_SINCE = FIND_ALL + " WHERE h.txid >= ?::xid8 ORDER BY h.valid_from, h.id";
+    // the oldest transaction still in progress, or the next one if none is
+    private static final String CURRENT_POSITION = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text";
+    private static final String FIND_LATEST_AT = "SELECT DISTINCT ON (h.base_currency_id, h.target_currency_id) "
+            + COLUMNS + JOINS
+            + " WHERE h.valid_from <= ? ORDER BY h.base_currency_id, h.target_currency_id, h.valid_from DESC, h.id DESC";
+    private static final String FIND_RANGE = """
+            SELECT * FROM (
+                (%s WHERE bc.code = ? AND tc.code = ? AND h.valid_from <= ? ORDER BY h.valid_from DESC, h.id DESC LIMIT 1)
+                UNION ALL
+                (%s WHERE bc.code = ? AND tc.code = ? AND h.valid_from > ? AND h.valid_from <= ?)
+            ) AS r
+            ORDER BY r.valid_from, r.id
+            """.formatted(FIND_ALL, FIND_ALL);
+
+    public ExchangeRateHistoryDao(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Changes of all pairs made after the given moment, oldest first.
+     */
+    public List<ExchangeRateChange> findSince(Instant since) {
+        long start = System.nanoTime();
+        log.debug("Finding exchange rate changes since {}...", since);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_SINCE)) {
+            statement.setObject(1, toTimestamp(since));
+
+            return extractList(statement.executeQuery());
+        } catch (SQLException e) {
+            log.error("Error while finding exchange rate changes since {}", since, e);
+            throw new DatabaseException(e);
+        } finally {
+            FIND_SINCE_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Position in the commit order to catch up from with {@link #findCommittedSince}: every change that
+     * isn't visible yet when it's taken will have been written by a transaction at or after it.
+     */
+    public long currentPosition() {
+        long start = System.nanoTime();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(CURRENT_POSITION);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return Long.parseLong(resultSet.getString(1));
+        } catch (SQLException e) {
+            log.error("Error while reading the exchange rate history position", e);
+            throw new DatabaseException(e);
+        } finally {
+            CURRENT_POSITION_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * Changes written by transactions at or after the given {@link #currentPosition() position}, oldest first.
+     * Changes of transactions that were still in progress at the position may be among them again.
+     */
+    public List<ExchangeRateChange> findCommittedSince(long position) {
+        long start = System.nanoTime();
+        log.debug("Finding exchange rate changes committed since transaction {}...", position);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_COMMITTED_SINCE)) {
+            statement.setString(1, Long.toString(position));
+
+            return extractList(statement.executeQuery());
+        } catch (SQLException e) {
+            log.error("Error while finding exchange rate changes committed since transaction {}", position, e);
+            throw new DatabaseException(e);
+        } finally {
+            FIND_COMMITTED_SINCE_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * The change in effect at the given moment, for every pair that already existed then.
+     */
+    public List<ExchangeRateChange> findLatestAt(Instant at) {
+        long start = System.nanoTime();
+        log.debug("Finding exchange rates in effect at {}...", at);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_LATEST_AT)) {
+            statement.setObject(1, toTimestamp(at));
+
+            return extractList(statement.executeQuery());
+        } catch (SQLException e) {
+            log.error("Error while finding exchange rates in effect at {}", at, e);
+            throw new DatabaseException(e);
+        } finally {
+            FIND_LATEST_AT_TIMER.recordSince(start);
+        }
+    }
+
+    /**
+     * The change in effect at {@code from} followed by the changes up to {@code to}, oldest first.
+     */
+    public List<ExchangeRateChange> findRange(String baseCode, String targetCode, Instant from, Instant to) {
+        long start = System.nanoTime();
+        log.debug("Finding history of ('{}', '{}') from {} to {}...", baseCode, targetCode, from, to);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(FIND_RANGE)) {
+            statement.setString(1, baseCode);
+            statement.setString(2, targetCode);
+            statement.setObject(3, toTimestamp(from));
+            statement.setString(4, baseCode);
+            statement.setString(5, targetCode);
+            statement.setObject(6, toTimestamp(from));
+            statement.setObject(7, toTimestamp(to));
+
+            return extractList(statement.executeQuery());
+        } catch (SQLException e) {
+            log.error("Error while finding history of ('{}', '{}')", baseCode, targetCode, e);
+            throw new DatabaseException(e);
+        } finally {
+            FIND_RANGE_TIMER.recordSince(start);
+        }
+    }
+
+    private List<ExchangeRateChange> extractList(ResultSet resultSet) throws SQLException {
+        List<ExchangeRateChange> result = new ArrayList<>();
+        while (resultSet.next()) {
+            result.add(ExchangeRateChange.builder()
+                    .id(resultSet.getLong("id"))
+                    .baseCurrencyCode(resultSet.getString("base_code"))
+                    .targetCurrencyCode(resultSet.getString("target_code"))
+                    .rate(resultSet.getBigDecimal("rate"))
+                    .validFrom(resultSet.getObject("valid_from", OffsetDateTime.class).toInstant())
+                    .build());
+        }
+        return result;
+    }
+
+    static OffsetDateTime toTimestamp(Instant instant) {
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    private static Histogram timer(String method) {
+        return MetricsRegistry.getInstance().histogram("dao_query_seconds", "DAO method execution time",
+                "dao", "ExchangeRateHistoryDao", "method", method);
+    }
+}
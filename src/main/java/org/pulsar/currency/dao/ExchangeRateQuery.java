@@ -0,0 +1,15 @@
+package org.pulsar.currency.dao;
+
+import lombok.Builder;
+
+/**
+ * Page of exchange rates ordered by base and target code. {@code afterBaseCode}/{@code afterTargetCode}
+ * is the last pair of the previous page; {@code null} filters and cursor mean "any".
+ */
+@Builder
+public record ExchangeRateQuery(String baseCode,
+                                String targetCode,
+                                String afterBaseCode,
+                                String afterTargetCode,
+                                int limit) {
+}
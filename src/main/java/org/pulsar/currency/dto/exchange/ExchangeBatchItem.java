@@ -0,0 +1,10 @@
+package org.pulsar.currency.dto.exchange;
+
+
+import lombok.Builder;
+
+@Builder
+public record ExchangeBatchItem(String from,
+                                String to,
+                                String amount) {
+}
@@ -0,0 +1,13 @@
+package org.pulsar.currency.dto.exchange;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExchangeBatchResponse(int index,
+                                    ExchangeResponse result,
+                                    Integer status,
+                                    String error) {
+}
@@ -0,0 +1,12 @@
+package org.pulsar.currency.dto.exchange;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+
+@Builder
+public record ExchangeRateChangeResponse(Instant validFrom,
+                                         BigDecimal rate) {
+}
@@ -0,0 +1,15 @@
+package org.pulsar.currency.dto.exchange;
+
+import lombok.Builder;
+
+import java.time.Instant;
+import java.util.List;
+
+
+@Builder
+public record ExchangeRateHistoryResponse(String baseCurrencyCode,
+                                          String targetCurrencyCode,
+                                          Instant from,
+                                          Instant to,
+                                          List<ExchangeRateChangeResponse> rates) {
+}
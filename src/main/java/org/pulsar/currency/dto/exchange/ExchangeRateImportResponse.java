@@ -0,0 +1,12 @@
+package org.pulsar.currency.dto.exchange;
+
+import lombok.Builder;
+
+import java.util.List;
+
+
+@Builder
+public record ExchangeRateImportResponse(int imported,
+                                         int failed,
+                                         List<ExchangeRateImportRow> rows) {
+}
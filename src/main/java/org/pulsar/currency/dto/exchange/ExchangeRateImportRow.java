@@ -0,0 +1,20 @@
+package org.pulsar.currency.dto.exchange;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+
+
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExchangeRateImportRow(int index,
+                                    String baseCurrencyCode,
+                                    String targetCurrencyCode,
+                                    Status status,
+                                    String error) {
+
+    public enum Status {
+        IMPORTED,
+        INVALID,
+        CURRENCY_NOT_FOUND
+    }
+}
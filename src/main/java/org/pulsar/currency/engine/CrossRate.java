@@ -0,0 +1,68 @@
+package org.pulsar.currency.engine;
+
+import org.pulsar.currency.model.Currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+
+/**
+ * Resolved conversion between two currencies together with the path it was derived from.
+ * The rate is also kept as a {@link FixedPoint} unscaled value with its scale, computed once
+ * with the route, so conversions don't need {@code BigDecimal} arithmetic.
+ */
+public record CrossRate(Currency baseCurrency,
+                        Currency targetCurrency,
+                        BigDecimal rate,
+                        List<Leg> legs,
+                        long unscaledRate,
+                        int rateScale) {
+
+    public static final int NOT_FIXED_POINT = -1;
+
+    private static final int SCALE = 6;
+
+    public static CrossRate of(List<Leg> legs) {
+        Leg first = legs.getFirst();
+        Leg last = legs.getLast();
+        BigDecimal rate = computeRate(legs);
+        boolean fixedPoint = rate.scale() >= 0 && rate.unscaledValue().bitLength() < Long.SIZE;
+
+        return new CrossRate(first.from(),
+                last.to(),
+                rate,
+                List.copyOf(legs),
+                fixedPoint ? rate.unscaledValue().longValue() : 0,
+                fixedPoint ? rate.scale() : NOT_FIXED_POINT);
+    }
+
+    public boolean isFixedPoint() {
+        return rateScale != NOT_FIXED_POINT;
+    }
+
+    public int hops() {
+        return legs.size();
+    }
+
+    /**
+     * A direct rate is returned as stored, an inverted one is rounded to 6 digits,
+     * a multi-hop rate is multiplied with full precision and rounded once at the end.
+     */
+    private static BigDecimal computeRate(List<Leg> legs) {
+        if (legs.size() == 1) {
+            Leg leg = legs.getFirst();
+            BigDecimal rate = leg.exchangeRate().getRate();
+            return leg.inverted() ? BigDecimal.ONE.divide(rate, SCALE, RoundingMode.HALF_UP) : rate;
+        }
+
+        BigDecimal result = BigDecimal.ONE;
+        for (Leg leg : legs) {
+            BigDecimal rate = leg.exchangeRate().getRate();
+            result = leg.inverted()
+                    ? result.divide(rate, MathContext.DECIMAL128)
+                    : result.multiply(rate, MathContext.DECIMAL128);
+        }
+        return result.setScale(SCALE, RoundingMode.HALF_UP);
+    }
+}
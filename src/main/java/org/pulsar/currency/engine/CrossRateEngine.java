@@ -0,0 +1,170 @@
+package org.pulsar.currency.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.cache.ExchangeRateCacheListener;
+import org.pulsar.currency.cache.ExchangeRateSnapshot;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Precomputed conversion rates for every reachable pair of currencies.
+ * Lookups never touch the database, the routing table is rebuilt from
+ * {@link ExchangeRateSnapshot} whenever the set of pairs changes and only
+ * the affected routes are recomputed when a single rate changes.
+ */
+@Slf4j
+public class CrossRateEngine implements ExchangeRateCacheListener {
+
+    private final List<String> pivots;
+    private final AtomicReference<RoutingTable> table = new AtomicReference<>();
+
+    public CrossRateEngine(List<String> pivots) {
+        this.pivots = List.copyOf(pivots);
+    }
+
+    public Optional<CrossRate> find(String baseCode, String targetCode) {
+        RoutingTable current = table.get();
+        if (current == null) {
+            return Optional.empty();
+        }
+        int slot = current.slotOf(baseCode, targetCode);
+        return slot == PairIndex.MISSING ? Optional.empty() : Optional.of(current.routes[slot]);
+    }
+
+    /**
+     * Finds the best conversion among the given rates only, without the precomputed table.
+     * Used when the rates are fetched from the database for a single conversion.
+     */
+    public Optional<CrossRate> find(Collection<ExchangeRate> exchangeRates, String baseCode, String targetCode) {
+        List<Leg> legs = new RateGraph(exchangeRates, pivots).bestPaths(baseCode).get(targetCode);
+        return legs == null ? Optional.empty() : Optional.of(CrossRate.of(legs));
+    }
+
+    public List<String> getPivots() {
+        return pivots;
+    }
+
+    public boolean isReady() {
+        return table.get() != null;
+    }
+
+    @Override
+    public void onReload(ExchangeRateSnapshot snapshot) {
+        rebuild(snapshot.getAll());
+    }
+
+    @Override
+    public void onUpdate(ExchangeRateSnapshot snapshot, ExchangeRate exchangeRate, boolean added) {
+        RoutingTable current = table.get();
+        if (added || current == null) {
+            rebuild(snapshot.getAll());
+        } else {
+            table.set(current.withRates(List.of(exchangeRate)));
+        }
+    }
+
+    @Override
+    public void onUpdateAll(ExchangeRateSnapshot snapshot, List<ExchangeRate> exchangeRates, boolean added) {
+        RoutingTable current = table.get();
+        if (added || current == null) {
+            rebuild(snapshot.getAll());
+        } else {
+            table.set(current.withRates(exchangeRates));
+        }
+    }
+
+    private void rebuild(Collection<ExchangeRate> exchangeRates) {
+        long start = System.nanoTime();
+        RateGraph graph = new RateGraph(exchangeRates, pivots);
+        List<CrossRate> routes = new ArrayList<>();
+
+        for (String sourceCode : graph.codes()) {
+            routes.addAll(graph.bestPaths(sourceCode).values().stream().map(CrossRate::of).toList());
+        }
+
+        table.set(new RoutingTable(routes));
+        log.debug("Cross rates have been rebuilt, {} routes in {} us", routes.size(), (System.nanoTime() - start) / 1000);
+    }
+
+    private static String key(ExchangeRate exchangeRate) {
+        return exchangeRate.getBaseCurrency().getCode() + exchangeRate.getTargetCurrency().getCode();
+    }
+
+    /**
+     * Routes are stored in slots: the slot of a pair is found through {@link PairIndex} by the packed codes.
+     * Codes that can't be packed are rare and are looked up in a regular map instead.
+     */
+    private static final class RoutingTable {
+
+        private final CrossRate[] routes;
+        private final PairIndex index;
+        private final Map<String, Integer> unpackedIndex;
+        private final Map<String, List<Integer>> slotsByRate;
+
+        RoutingTable(List<CrossRate> routes) {
+            this.routes = routes.toArray(CrossRate[]::new);
+            this.index = new PairIndex(this.routes.length);
+            this.unpackedIndex = new HashMap<>();
+            this.slotsByRate = new HashMap<>();
+
+            for (int slot = 0; slot < this.routes.length; slot++) {
+                CrossRate crossRate = this.routes[slot];
+                String baseCode = crossRate.baseCurrency().getCode();
+                String targetCode = crossRate.targetCurrency().getCode();
+                int pairKey = CurrencyCodes.pairKey(baseCode, targetCode);
+                if (pairKey == CurrencyCodes.INVALID) {
+                    unpackedIndex.put(baseCode + targetCode, slot);
+                } else {
+                    index.put(pairKey, slot);
+                }
+
+                for (Leg leg : crossRate.legs()) {
+                    slotsByRate.computeIfAbsent(key(leg.exchangeRate()), k -> new ArrayList<>()).add(slot);
+                }
+            }
+        }
+
+        private RoutingTable(RoutingTable source) {
+            this.routes = source.routes.clone();
+            this.index = source.index;
+            this.unpackedIndex = source.unpackedIndex;
+            this.slotsByRate = source.slotsByRate;
+        }
+
+        int slotOf(String baseCode, String targetCode) {
+            int pairKey = CurrencyCodes.pairKey(baseCode, targetCode);
+            if (pairKey != CurrencyCodes.INVALID) {
+                return index.get(pairKey);
+            }
+            return unpackedIndex.getOrDefault(baseCode + targetCode, PairIndex.MISSING);
+        }
+
+        /**
+         * The paths stay the same when only rate values change, so just the routes
+         * going through those rates are recomputed.
+         */
+        RoutingTable withRates(Collection<ExchangeRate> exchangeRates) {
+            RoutingTable updated = new RoutingTable(this);
+
+            for (ExchangeRate exchangeRate : exchangeRates) {
+                String rateKey = key(exchangeRate);
+                for (int slot : slotsByRate.getOrDefault(rateKey, List.of())) {
+                    List<Leg> legs = updated.routes[slot].legs()
+                            .stream()
+                            .map(leg -> key(leg.exchangeRate()).equals(rateKey) ? leg.with(exchangeRate) : leg)
+                            .toList();
+                    updated.routes[slot] = CrossRate.of(legs);
+                }
+            }
+
+            return updated;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.pulsar.currency.engine;
+
+/**
+ * Packs a three-letter upper-case currency code into 15 bits (5 bits per letter),
+ * so that a pair of currencies fits into a single non-negative {@code int}.
+ */
+public final class CurrencyCodes {
+
+    public static final int INVALID = -1;
+
+    private static final int BITS_PER_LETTER = 5;
+    private static final int CODE_BITS = 3 * BITS_PER_LETTER;
+    private static final int LETTER_MASK = (1 << BITS_PER_LETTER) - 1;
+
+    private CurrencyCodes() {}
+
+    /**
+     * @return the packed code or {@link #INVALID} if the code isn't three letters A-Z
+     */
+    public static int pack(String code) {
+        if (code == null || code.length() != 3) {
+            return INVALID;
+        }
+
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            char letter = code.charAt(i);
+            if (letter < 'A' || letter > 'Z') {
+                return INVALID;
+            }
+            packed = (packed << BITS_PER_LETTER) | (letter - 'A');
+        }
+        return packed;
+    }
+
+    public static String unpack(int packed) {
+        char[] letters = new char[3];
+        for (int i = 2; i >= 0; i--) {
+            letters[i] = (char) ('A' + (packed & LETTER_MASK));
+            packed >>>= BITS_PER_LETTER;
+        }
+        return new String(letters);
+    }
+
+    /**
+     * @return the key of the pair or {@link #INVALID} if one of the codes can't be packed
+     */
+    public static int pairKey(String baseCode, String targetCode) {
+        int base = pack(baseCode);
+        int target = pack(targetCode);
+        return base == INVALID || target == INVALID ? INVALID : pairKey(base, target);
+    }
+
+    public static int pairKey(int packedBase, int packedTarget) {
+        return (packedBase << CODE_BITS) | packedTarget;
+    }
+}
@@ -0,0 +1,59 @@
+package org.pulsar.currency.engine;
+
+/**
+ * Decimal numbers as an unscaled {@code long} and a scale, the same representation {@link java.math.BigDecimal}
+ * uses for small values. Only plain non-negative numbers ({@code 123}, {@code 0.5}, {@code 12.340}) of up to
+ * 18 digits are accepted, anything else is left to {@code BigDecimal}: the unscaled value and the scale
+ * are then exactly those {@code new BigDecimal(value)} would have.
+ */
+public final class FixedPoint {
+
+    public static final long INVALID = -1;
+
+    private static final int MAX_DIGITS = 18;
+
+    private FixedPoint() {}
+
+    /**
+     * @return the digits of the value without the decimal point, or {@link #INVALID}
+     */
+    public static long parseUnscaled(String value) {
+        int length = value.length();
+        long unscaled = 0;
+        int digits = 0;
+        boolean point = false;
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    return INVALID;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return INVALID;
+            }
+        }
+        return digits == 0 ? INVALID : unscaled;
+    }
+
+    /**
+     * @return the number of digits after the decimal point of a value accepted by {@link #parseUnscaled}
+     */
+    public static int scaleOf(String value) {
+        int point = value.indexOf('.');
+        return point < 0 ? 0 : value.length() - point - 1;
+    }
+
+    /**
+     * Multiplies two non-negative unscaled values, the scale of the product is the sum of the scales.
+     *
+     * @return the product, or {@link #INVALID} if it doesn't fit in a {@code long}
+     */
+    public static long multiply(long first, long second) {
+        long product = first * second;
+        return Math.multiplyHigh(first, second) != 0 || product < 0 ? INVALID : product;
+    }
+}
@@ -0,0 +1,22 @@
+package org.pulsar.currency.engine;
+
+import org.pulsar.currency.model.Currency;
+import org.pulsar.currency.model.ExchangeRate;
+
+/**
+ * One step of a conversion path: a stored exchange rate used either as is or inverted.
+ */
+public record Leg(ExchangeRate exchangeRate, boolean inverted) {
+
+    public Currency from() {
+        return inverted ? exchangeRate.getTargetCurrency() : exchangeRate.getBaseCurrency();
+    }
+
+    public Currency to() {
+        return inverted ? exchangeRate.getBaseCurrency() : exchangeRate.getTargetCurrency();
+    }
+
+    public Leg with(ExchangeRate exchangeRate) {
+        return new Leg(exchangeRate, inverted);
+    }
+}
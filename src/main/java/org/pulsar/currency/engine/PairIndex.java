@@ -0,0 +1,70 @@
+package org.pulsar.currency.engine;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from a packed pair key to a slot number. Keys and values
+ * are plain {@code int} arrays, so a lookup neither boxes nor allocates. The index is
+ * filled once while building a routing table and is only read afterwards.
+ */
+final class PairIndex {
+
+    static final int MISSING = -1;
+
+    private static final int EMPTY = -1;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+
+    private final int[] keys;
+    private final int[] values;
+    private final int mask;
+    private final int shift;
+    private int size;
+
+    PairIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        this.shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    void put(int key, int value) {
+        int index = indexOf(key);
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        if (keys[index] == EMPTY) {
+            if (size + 1 > (keys.length >> 1)) {
+                throw new IllegalStateException("Pair index is full: " + size);
+            }
+            size++;
+        }
+        keys[index] = key;
+        values[index] = value;
+    }
+
+    int get(int key) {
+        int index = indexOf(key);
+        while (true) {
+            int current = keys[index];
+            if (current == key) {
+                return values[index];
+            } else if (current == EMPTY) {
+                return MISSING;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the slot the search for the key starts at
+     */
+    int indexOf(int key) {
+        return (key * GOLDEN_RATIO) >>> shift;
+    }
+}
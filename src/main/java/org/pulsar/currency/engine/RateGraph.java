@@ -0,0 +1,112 @@
+package org.pulsar.currency.engine;
+
+import org.pulsar.currency.model.Currency;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Currencies as vertices and stored rates as edges usable in both directions.
+ * The best path is the one with the fewest hops, ties are broken by the rank of the
+ * intermediate currencies in the pivot list and then by the number of inverted legs.
+ */
+final class RateGraph {
+
+    private final Map<String, Currency> currencies = new LinkedHashMap<>();
+    private final Map<String, List<Leg>> adjacency = new HashMap<>();
+    private final Map<String, Integer> pivotRanks;
+    private final int defaultRank;
+
+    RateGraph(Collection<ExchangeRate> exchangeRates, List<String> pivots) {
+        this.pivotRanks = new HashMap<>();
+        for (int i = 0; i < pivots.size(); i++) {
+            pivotRanks.putIfAbsent(pivots.get(i), i);
+        }
+        this.defaultRank = pivots.size();
+
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            addLeg(new Leg(exchangeRate, false));
+            addLeg(new Leg(exchangeRate, true));
+        }
+    }
+
+    Set<String> codes() {
+        return currencies.keySet();
+    }
+
+    /**
+     * Breadth-first search from the given currency, returns the best path to every reachable one.
+     */
+    Map<String, List<Leg>> bestPaths(String sourceCode) {
+        Map<String, Node> nodes = new HashMap<>();
+        Queue<String> queue = new ArrayDeque<>();
+        nodes.put(sourceCode, new Node(0, 0, 0, null));
+        queue.add(sourceCode);
+
+        while (!queue.isEmpty()) {
+            String code = queue.poll();
+            Node node = nodes.get(code);
+            int pivotCost = node.pivotCost + (code.equals(sourceCode) ? 0 : rank(code));
+
+            for (Leg leg : adjacency.getOrDefault(code, List.of())) {
+                String next = leg.to().getCode();
+                Node candidate = new Node(node.hops + 1, pivotCost, node.inverted + (leg.inverted() ? 1 : 0), leg);
+                Node existing = nodes.get(next);
+                if (existing == null) {
+                    nodes.put(next, candidate);
+                    queue.add(next);
+                } else if (candidate.isBetterThan(existing)) {
+                    nodes.put(next, candidate);
+                }
+            }
+        }
+
+        Map<String, List<Leg>> paths = new HashMap<>();
+        for (String code : nodes.keySet()) {
+            if (!code.equals(sourceCode)) {
+                paths.put(code, buildPath(nodes, code));
+            }
+        }
+        return paths;
+    }
+
+    private List<Leg> buildPath(Map<String, Node> nodes, String targetCode) {
+        List<Leg> path = new ArrayList<>();
+        Node node = nodes.get(targetCode);
+        while (node.leg != null) {
+            path.addFirst(node.leg);
+            node = nodes.get(node.leg.from().getCode());
+        }
+        return path;
+    }
+
+    private void addLeg(Leg leg) {
+        currencies.putIfAbsent(leg.from().getCode(), leg.from());
+        adjacency.computeIfAbsent(leg.from().getCode(), code -> new ArrayList<>()).add(leg);
+    }
+
+    private int rank(String code) {
+        return pivotRanks.getOrDefault(code, defaultRank);
+    }
+
+    private record Node(int hops, int pivotCost, int inverted, Leg leg) {
+
+        boolean isBetterThan(Node other) {
+            if (hops != other.hops) {
+                return hops < other.hops;
+            }
+            if (pivotCost != other.pivotCost) {
+                return pivotCost < other.pivotCost;
+            }
+            return inverted < other.inverted;
+        }
+    }
+}
@@ -1,19 +1,25 @@
 package org.pulsar.currency.exception;
 
+/**
+ * Expected outcomes such as a missing pair are reported with these exceptions, often enough that filling
+ * in the stack trace would be the most expensive part of the request. They don't record one: the place
+ * they are thrown from is clear from the type, and a wrapped cause keeps its own trace.
+ */
 public abstract class ApplicationException extends RuntimeException {
 
     public ApplicationException() {
+        this(null, null);
     }
 
     public ApplicationException(String message) {
-        super(message);
+        this(message, null);
     }
 
     public ApplicationException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, false, false);
     }
 
     public ApplicationException(Throwable cause) {
-        super(cause);
+        this(cause == null ? null : cause.toString(), cause);
     }
 }
@@ -0,0 +1,8 @@
+package org.pulsar.currency.exception;
+
+public class OverloadedException extends ApplicationException {
+
+    public OverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,162 @@
+package org.pulsar.currency.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.admission.AdaptiveConcurrencyLimit;
+import org.pulsar.currency.admission.ClientRateLimiter;
+import org.pulsar.currency.dto.ErrorResponse;
+import org.pulsar.currency.metrics.Counter;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.util.PropertiesUtils;
+import org.pulsar.currency.util.StringUtils;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static jakarta.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+
+/**
+ * Turns requests away before they reach a servlet, and so before they wait for a connection:
+ * 429 when the client has used up its rate, 503 when the server is at its concurrency limit.
+ * Both come with {@code Retry-After}. Without a limiter in the servlet context every request passes.
+ */
+public class AdmissionFilter implements Filter {
+
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final String RETRY_AFTER = "Retry-After";
+
+    private final List<String> exemptPaths = Arrays.stream(PropertiesUtils.get("admission.exempt-paths", "/metrics,/health").split(","))
+            .map(String::trim)
+            .filter(path -> !path.isEmpty())
+            .toList();
+    private final String clientHeader = PropertiesUtils.get("admission.rate.client-header", null);
+
+    private final Counter rateLimited;
+    private final Counter concurrencyLimited;
+
+    private ClientRateLimiter rateLimiter;
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+    private byte[] tooManyRequestsBody;
+    private byte[] overloadedBody;
+
+    public AdmissionFilter() {
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        this.rateLimited = registry.counter("admission_rejected_total", "Requests turned away by the admission filter",
+                "reason", "rate");
+        this.concurrencyLimited = registry.counter("admission_rejected_total", "Requests turned away by the admission filter",
+                "reason", "concurrency");
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        ServletContext servletContext = filterConfig.getServletContext();
+        rateLimiter = (ClientRateLimiter) servletContext.getAttribute("clientRateLimiter");
+        concurrencyLimit = (AdaptiveConcurrencyLimit) servletContext.getAttribute("concurrencyLimit");
+
+        ObjectMapper objectMapper = servletContext.getAttribute("objectMapper") instanceof ObjectMapper mapper
+                ? mapper
+                : new ObjectMapper();
+        tooManyRequestsBody = objectMapper.writeValueAsBytes(new ErrorResponse("Слишком много запросов, повторите запрос позже"));
+        overloadedBody = objectMapper.writeValueAsBytes(new ErrorResponse("Сервер перегружен, повторите запрос позже"));
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        if (isExempt(httpRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire(clientKey(httpRequest));
+            if (waitNanos > 0) {
+                rateLimited.increment();
+                reject((HttpServletResponse) response, SC_TOO_MANY_REQUESTS, retryAfterSeconds(waitNanos), tooManyRequestsBody);
+                return;
+            }
+        }
+
+        if (concurrencyLimit == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            concurrencyLimited.increment();
+            reject((HttpServletResponse) response, SC_SERVICE_UNAVAILABLE, 1, overloadedBody);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // the request is still being handled on another thread
+                request.getAsyncContext().addListener(new ReleasingListener());
+            } else {
+                concurrencyLimit.release();
+            }
+        }
+    }
+
+    private boolean isExempt(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String exemptPath : exemptPaths) {
+            if (path.equals(exemptPath) || path.startsWith(exemptPath + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String client = request.getHeader(clientHeader);
+            if (!StringUtils.isNullOrBlank(client)) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (waitNanos + second - 1) / second);
+    }
+
+    private static void reject(HttpServletResponse response, int status, long retryAfterSeconds, byte[] body) throws IOException {
+        response.setStatus(status);
+        response.setHeader(RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private class ReleasingListener implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            concurrencyLimit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -1,12 +1,10 @@
 package org.pulsar.currency.filter;
 
 import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
 
 import java.io.IOException;
 
 
-@WebFilter("/*")
 public class ContentTypeFilter implements Filter {
 
     private static final String DEFAULT_CONTENT_TYPE = "application/json";
@@ -1,14 +1,12 @@
 package org.pulsar.currency.filter;
 
 import jakarta.servlet.*;
-import jakarta.servlet.annotation.WebFilter;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
 
-@WebFilter("/*")
 public class EncodingFilter implements Filter {
 
     @Override
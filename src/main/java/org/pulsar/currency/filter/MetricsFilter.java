@@ -0,0 +1,104 @@
+package org.pulsar.currency.filter;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.pulsar.currency.metrics.Counter;
+import org.pulsar.currency.metrics.Histogram;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.util.PropertiesUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+public class MetricsFilter implements Filter {
+
+    private static final String UNMATCHED_ENDPOINT = "unmatched";
+    // one key=value line per request, instead of the lines of every layer
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("access");
+    private static final boolean ACCESS_LOG_ENABLED = PropertiesUtils.getBoolean("log.access.enabled", true);
+
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+    // the registry formats the labels on every lookup, the handles are looked up once per combination
+    private final Map<Route, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<Outcome, Counter> responses = new ConcurrentHashMap<>();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // the response is produced on another thread, record it once the async context completes
+                request.getAsyncContext().addListener(new RecordingListener(start));
+            } else {
+                record((HttpServletRequest) request, (HttpServletResponse) response, start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, long start) {
+        String endpoint = endpointOf(request);
+        String method = request.getMethod();
+
+        long elapsed = System.nanoTime() - start;
+        int status = response.getStatus();
+
+        Route route = new Route(endpoint, method);
+        histograms.computeIfAbsent(route, key -> registry.histogram("http_server_requests_seconds",
+                        "Request handling time", "endpoint", key.endpoint(), "method", key.method()))
+                .record(elapsed);
+        responses.computeIfAbsent(new Outcome(route, status), key -> registry.counter("http_server_responses_total",
+                        "Responses by status", "endpoint", key.route().endpoint(), "method", key.route().method(),
+                        "status", Integer.toString(key.status())))
+                .increment();
+
+        if (ACCESS_LOG_ENABLED && ACCESS_LOG.isInfoEnabled()) {
+            ACCESS_LOG.info("method={} path={} endpoint={} status={} duration_us={} remote={}",
+                    method, request.getRequestURI(), endpoint, status, elapsed / 1_000, request.getRemoteAddr());
+        }
+    }
+
+    private static String endpointOf(HttpServletRequest request) {
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        String pattern = mapping != null ? mapping.getPattern() : null;
+        return pattern == null || pattern.isEmpty() || pattern.equals("/") ? UNMATCHED_ENDPOINT : pattern;
+    }
+
+    private record Route(String endpoint, String method) {}
+
+    private record Outcome(Route route, int status) {}
+
+    private class RecordingListener implements AsyncListener {
+
+        private final long start;
+
+        private RecordingListener(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record((HttpServletRequest) event.getSuppliedRequest(), (HttpServletResponse) event.getSuppliedResponse(), start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.pulsar.currency.filter;
+
+import jakarta.servlet.*;
+import org.pulsar.currency.ReadWriteRouting;
+
+import java.io.IOException;
+
+
+/**
+ * Container threads are reused, a request must not inherit the routing of the previous one.
+ */
+public class ReadYourWritesFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException {
+        ReadWriteRouting.clear();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRouting.clear();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.pulsar.currency.health;
+
+/**
+ * Whether the instance should get traffic, reported by {@code /health/ready}.
+ */
+public class Readiness {
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+}
@@ -0,0 +1,144 @@
+package org.pulsar.currency.health;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.DataSourceFactory;
+import org.pulsar.currency.dao.CurrencyDao;
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.dto.currency.CurrencyResponse;
+import org.pulsar.currency.dto.exchange.ExchangeRateResponse;
+import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.exception.exchange.ExchangeRateNotFoundException;
+import org.pulsar.currency.service.CurrencyService;
+import org.pulsar.currency.service.ExchangeRateService;
+import tools.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Gets a fresh instance to its steady state before it is reported ready: the pools hold their minimum of
+ * connections, every connection has run the lookups often enough for pgjdbc to prepare them on the server,
+ * and the conversion path, JSON serialization included, has been run enough times to be JIT-compiled.
+ * Runs in the background, the instance becomes ready when it's over, also when it failed:
+ * it's only an optimization and a cold instance is still better than none.
+ */
+@Slf4j
+public class WarmUp {
+
+    private static final String[] AMOUNTS = {"1", "100.50", "12345.678", "0.01"};
+
+    private final CurrencyDao currencyDao;
+    private final ExchangeRateDao exchangeRateDao;
+    private final CurrencyService currencyService;
+    private final ExchangeRateService exchangeRateService;
+    private final ObjectMapper objectMapper;
+    private final Readiness readiness;
+    private final int databaseRounds;
+    private final int conversions;
+
+    // keeps the results of the conversions observable, so that the JIT can't drop them
+    private long checksum;
+
+    public WarmUp(CurrencyDao currencyDao,
+                  ExchangeRateDao exchangeRateDao,
+                  CurrencyService currencyService,
+                  ExchangeRateService exchangeRateService,
+                  ObjectMapper objectMapper,
+                  Readiness readiness,
+                  int databaseRounds,
+                  int conversions) {
+        this.currencyDao = currencyDao;
+        this.exchangeRateDao = exchangeRateDao;
+        this.currencyService = currencyService;
+        this.exchangeRateService = exchangeRateService;
+        this.objectMapper = objectMapper;
+        this.readiness = readiness;
+        this.databaseRounds = databaseRounds;
+        this.conversions = conversions;
+    }
+
+    public void start() {
+        Thread thread = new Thread(this::run, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            DataSourceFactory.fillPools();
+            List<CurrencyResponse> currencies = currencyService.getAll();
+            List<ExchangeRateResponse> exchangeRates = exchangeRateService.getAll();
+            prepareStatements(exchangeRates);
+            convert(currencies, exchangeRates);
+            log.info("Warm-up finished in {} ms: {} currencies, {} exchange rates, {} conversions",
+                    elapsedMillis(start), currencies.size(), exchangeRates.size(), conversions);
+        } catch (Exception e) {
+            log.error("Warm-up failed after {} ms, the instance takes traffic cold", elapsedMillis(start), e);
+        } finally {
+            readiness.markReady();
+        }
+    }
+
+    /**
+     * As many lookups at the same time as there are connections, so that they spread over all of them.
+     */
+    private void prepareStatements(List<ExchangeRateResponse> exchangeRates) throws Exception {
+        if (exchangeRates.isEmpty()) {
+            return;
+        }
+
+        int connections = DataSourceFactory.getMaximumPoolSize();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> lookups = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                ExchangeRateResponse exchangeRate = exchangeRates.get(i % exchangeRates.size());
+                lookups.add(executor.submit(() -> {
+                    for (int round = 0; round < databaseRounds; round++) {
+                        currencyDao.findByCode(exchangeRate.baseCurrency().code());
+                        exchangeRateDao.findByCodes(exchangeRate.baseCurrency().code(), exchangeRate.targetCurrency().code());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+        }
+    }
+
+    /**
+     * Cycles through direct pairs and pairs that have to be crossed, some of which may not exist.
+     */
+    private void convert(List<CurrencyResponse> currencies, List<ExchangeRateResponse> exchangeRates) {
+        if (exchangeRates.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < conversions; i++) {
+            ExchangeRateResponse exchangeRate = exchangeRates.get(i % exchangeRates.size());
+            String target = i % 2 == 0
+                    ? exchangeRate.targetCurrency().code()
+                    : currencies.get(i % currencies.size()).code();
+            ExchangeRequest request = ExchangeRequest.builder()
+                    .baseCurrencyCode(exchangeRate.baseCurrency().code())
+                    .targetCurrencyCode(target)
+                    .amount(AMOUNTS[i % AMOUNTS.length])
+                    .build();
+
+            try {
+                checksum += objectMapper.writeValueAsBytes(exchangeRateService.exchange(request)).length;
+            } catch (ExchangeRateNotFoundException | IllegalArgumentException e) {
+                checksum++;
+            }
+        }
+        log.debug("Warm-up conversions checksum {}", checksum);
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
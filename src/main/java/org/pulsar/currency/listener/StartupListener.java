@@ -4,57 +4,360 @@ import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
+import lombok.extern.slf4j.Slf4j;
 import org.pulsar.currency.DataSourceFactory;
+import org.pulsar.currency.SchemaInitializer;
+import org.pulsar.currency.admission.AdaptiveConcurrencyLimit;
+import org.pulsar.currency.admission.ClientRateLimiter;
+import org.pulsar.currency.async.RequestExecutor;
+import org.pulsar.currency.cache.DataChangeSubscriber;
+import org.pulsar.currency.cache.ExchangeRateCache;
+import org.pulsar.currency.cache.ExchangeRateCacheListener;
+import org.pulsar.currency.cache.ExchangeRateHistoryCache;
+import org.pulsar.currency.cache.ExchangeRateSnapshot;
+import org.pulsar.currency.cache.NegativeCache;
+import org.pulsar.currency.controller.ContentNegotiation;
 import org.pulsar.currency.controller.handler.ExceptionHandler;
+import org.pulsar.currency.dao.ChangeNotifier;
 import org.pulsar.currency.dao.CurrencyDao;
 import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.dao.ExchangeRateHistoryDao;
 import org.pulsar.currency.dto.exchange.ExchangeRateCreateRequest;
 import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.engine.CrossRateEngine;
+import org.pulsar.currency.health.Readiness;
+import org.pulsar.currency.health.WarmUp;
 import org.pulsar.currency.mapper.CurrencyMapper;
 import org.pulsar.currency.mapper.ExchangeRateMapper;
+import org.pulsar.currency.model.ExchangeRate;
 import org.pulsar.currency.service.CurrencyService;
+import org.pulsar.currency.service.DataVersion;
+import org.pulsar.currency.service.ExchangeRateHistoryService;
 import org.pulsar.currency.service.ExchangeRateService;
+import org.pulsar.currency.service.RateUpdatePipeline;
+import org.pulsar.currency.util.PropertiesUtils;
 import org.pulsar.currency.validation.ExchangeCreateUpdateValidator;
 import org.pulsar.currency.validation.ExchangeRequestValidator;
 import org.pulsar.currency.validation.Validator;
 import tools.jackson.databind.ObjectMapper;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
 
 
 @WebListener
+@Slf4j
 public class StartupListener implements ServletContextListener {
 
+    private ExchangeRateCache exchangeRateCache;
+    private ExchangeRateHistoryCache historyCache;
+    private RequestExecutor requestExecutor;
+    private RateUpdatePipeline rateUpdatePipeline;
+    private DataChangeSubscriber dataChangeSubscriber;
+    private AdaptiveConcurrencyLimit concurrencyLimit;
+
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         ServletContext servletContext = sce.getServletContext();
         DataSource dataSource = DataSourceFactory.getDataSource();
 
-        CurrencyDao currencyDao = new CurrencyDao(dataSource);
+        applySchema(dataSource);
+
+        DataVersion dataVersion = new DataVersion();
+        servletContext.setAttribute("dataVersion", dataVersion);
+
+        ChangeNotifier changeNotifier = new ChangeNotifier(
+                PropertiesUtils.get("node.id", UUID.randomUUID().toString()));
+
+        DataSource writeDataSource = DataSourceFactory.getWriteDataSource();
+        DataSource readDataSource = DataSourceFactory.getReadDataSource();
+
+        CurrencyDao currencyDao = new CurrencyDao(writeDataSource, readDataSource, changeNotifier);
         CurrencyMapper currencyMapper = new CurrencyMapper();
-        CurrencyService currencyService = new CurrencyService(currencyDao, currencyMapper);
+        CurrencyService currencyService = new CurrencyService(currencyDao,
+                currencyMapper,
+                dataVersion,
+                createNegativeCache("currencies", dataVersion));
         servletContext.setAttribute("currencyService", currencyService);
 
-        ExchangeRateService exchangeRateService = createExchangeRateService(dataSource, currencyMapper);
+        int fetchSize = PropertiesUtils.getInt("exchange.page.fetch-size", 500);
+        ExchangeRateDao exchangeRateDao = new ExchangeRateDao(writeDataSource,
+                readDataSource,
+                fetchSize,
+                changeNotifier);
+        // a change is announced when it commits on the primary, replicas may not have it yet: everything that
+        // follows the changes, the reloads, history catch-up and the change subscriber, reads from the primary
+        ExchangeRateDao primaryExchangeRateDao = new ExchangeRateDao(dataSource, fetchSize, changeNotifier);
+        exchangeRateCache = new ExchangeRateCache(exchangeRateDao, primaryExchangeRateDao);
+        CrossRateEngine crossRateEngine = createCrossRateEngine();
+        exchangeRateCache.addListener(crossRateEngine);
+        exchangeRateCache.addListener(bumpOnReload(dataVersion));
+        loadExchangeRateCache(exchangeRateCache);
+
+        rateUpdatePipeline = createRateUpdatePipeline(exchangeRateDao, exchangeRateCache, dataVersion);
+        ExchangeRateService exchangeRateService = createExchangeRateService(exchangeRateDao,
+                exchangeRateCache,
+                crossRateEngine,
+                currencyMapper,
+                dataVersion,
+                rateUpdatePipeline,
+                createNegativeCache("exchange_rates", dataVersion));
         servletContext.setAttribute("exchangeRateService", exchangeRateService);
 
+        ExchangeRateHistoryDao historyDao = new ExchangeRateHistoryDao(readDataSource);
+        historyCache = new ExchangeRateHistoryCache(new ExchangeRateHistoryDao(dataSource),
+                exchangeRateCache,
+                Duration.ofHours(PropertiesUtils.getLong("history.window-hours", 24)),
+                PropertiesUtils.getInt("history.max-changes-per-pair", 1024));
+        exchangeRateCache.addListener(historyCache);
+        loadHistoryCache(historyCache);
+        dataChangeSubscriber = startDataChangeSubscriber(primaryExchangeRateDao,
+                exchangeRateCache,
+                dataVersion,
+                changeNotifier);
+        servletContext.setAttribute("exchangeRateHistoryService", new ExchangeRateHistoryService(exchangeRateService,
+                exchangeRateDao,
+                historyDao,
+                historyCache,
+                exchangeRateCache,
+                crossRateEngine));
+
         ObjectMapper objectMapper = new ObjectMapper();
         servletContext.setAttribute("objectMapper", objectMapper);
+        servletContext.setAttribute("contentNegotiation", new ContentNegotiation(objectMapper));
 
         ExceptionHandler exceptionHandler = new ExceptionHandler(objectMapper);
         servletContext.setAttribute("exceptionHandler", exceptionHandler);
+
+        requestExecutor = createRequestExecutor(objectMapper);
+        if (requestExecutor != null) {
+            servletContext.setAttribute("requestExecutor", requestExecutor);
+        }
+
+        configureAdmission(servletContext);
+
+        Readiness readiness = new Readiness();
+        servletContext.setAttribute("readiness", readiness);
+        startWarmUp(new WarmUp(currencyDao,
+                exchangeRateDao,
+                currencyService,
+                exchangeRateService,
+                objectMapper,
+                readiness,
+                PropertiesUtils.getInt("warmup.database-rounds", 5),
+                PropertiesUtils.getInt("warmup.conversions", 20_000)), readiness);
     }
 
-    private static ExchangeRateService createExchangeRateService(DataSource dataSource, CurrencyMapper currencyMapper) {
-        ExchangeRateDao exchangeRateDao = new ExchangeRateDao(dataSource);
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (concurrencyLimit != null) {
+            concurrencyLimit.close();
+        }
+        if (dataChangeSubscriber != null) {
+            dataChangeSubscriber.close();
+        }
+        if (requestExecutor != null) {
+            requestExecutor.close();
+        }
+        if (rateUpdatePipeline != null) {
+            rateUpdatePipeline.close();
+        }
+        if (exchangeRateCache != null) {
+            exchangeRateCache.close();
+        }
+        if (historyCache != null) {
+            historyCache.close();
+        }
+        DataSourceFactory.close();
+    }
+
+    private static CrossRateEngine createCrossRateEngine() {
+        List<String> pivots = Arrays.stream(PropertiesUtils.get("exchange.pivot-currencies", "USD").split(","))
+                .map(String::trim)
+                .filter(code -> !code.isEmpty())
+                .toList();
+        return new CrossRateEngine(pivots);
+    }
+
+    /**
+     * A reload only notifies when the rates differ, e.g. after a change made by another instance.
+     * Local writes bump the version in the service.
+     */
+    private static ExchangeRateCacheListener bumpOnReload(DataVersion dataVersion) {
+        return new ExchangeRateCacheListener() {
+            @Override
+            public void onReload(ExchangeRateSnapshot snapshot) {
+                dataVersion.bump();
+            }
+
+            @Override
+            public void onUpdate(ExchangeRateSnapshot snapshot, ExchangeRate exchangeRate, boolean added) {
+            }
+        };
+    }
+
+    private static void applySchema(DataSource dataSource) {
+        if (!PropertiesUtils.getBoolean("schema.auto-create", true)) {
+            return;
+        }
+
+        for (String script : List.of("db/exchange_rate_history.sql", "db/data_changes.sql")) {
+            try {
+                SchemaInitializer.apply(dataSource, script);
+            } catch (Exception e) {
+                log.error("Schema script '{}' hasn't been applied, writes fail until the schema exists", script, e);
+            }
+        }
+    }
+
+    private static DataChangeSubscriber startDataChangeSubscriber(ExchangeRateDao exchangeRateDao,
+                                                                  ExchangeRateCache exchangeRateCache,
+                                                                  DataVersion dataVersion,
+                                                                  ChangeNotifier changeNotifier) {
+        if (!PropertiesUtils.getBoolean("invalidation.enabled", true)) {
+            log.info("Changes made by other instances are picked up by the periodic refresh only");
+            return null;
+        }
+
+        DataChangeSubscriber subscriber = new DataChangeSubscriber(DataSourceFactory::openConnection,
+                exchangeRateDao,
+                exchangeRateCache,
+                dataVersion,
+                changeNotifier.nodeId(),
+                Duration.ofMillis(PropertiesUtils.getLong("invalidation.gap-timeout-ms", 1000)),
+                PropertiesUtils.getInt("invalidation.max-targeted-pairs", 256),
+                Duration.ofMillis(PropertiesUtils.getLong("invalidation.reconnect-delay-ms", 1000)));
+        subscriber.start();
+        return subscriber;
+    }
+
+    private static void loadHistoryCache(ExchangeRateHistoryCache historyCache) {
+        if (!PropertiesUtils.getBoolean("cache.enabled", true)) {
+            return;
+        }
+
+        try {
+            historyCache.load();
+        } catch (Exception e) {
+            log.error("Exchange rate history hasn't been loaded on startup, history reads go to the database", e);
+        }
+    }
+
+    private static void loadExchangeRateCache(ExchangeRateCache exchangeRateCache) {
+        if (!PropertiesUtils.getBoolean("cache.enabled", true)) {
+            log.info("Exchange rates cache is disabled, every read goes to the database");
+            return;
+        }
+
+        try {
+            exchangeRateCache.reload();
+        } catch (Exception e) {
+            log.error("Exchange rates cache hasn't been loaded on startup, reads go to the database until the next refresh", e);
+        }
+
+        long refreshInterval = PropertiesUtils.getLong("cache.refresh-interval-seconds", 30);
+        exchangeRateCache.startRefreshing(Duration.ofSeconds(refreshInterval));
+    }
+
+    private static RequestExecutor createRequestExecutor(ObjectMapper objectMapper) {
+        if (!PropertiesUtils.getBoolean("async.enabled", false)) {
+            return null;
+        }
+
+        int maxConcurrency = PropertiesUtils.getInt("async.max-concurrency", DataSourceFactory.getMaximumPoolSize());
+        long acquireTimeout = PropertiesUtils.getLong("async.acquire-timeout-ms", 1000);
+        long asyncTimeout = PropertiesUtils.getLong("async.timeout-ms", 30000);
+        log.info("Requests are handled on virtual threads, at most {} at a time", maxConcurrency);
+        return new RequestExecutor(maxConcurrency, acquireTimeout, asyncTimeout, objectMapper);
+    }
+
+    private static void startWarmUp(WarmUp warmUp, Readiness readiness) {
+        if (!PropertiesUtils.getBoolean("warmup.enabled", true)) {
+            log.info("Warm-up is disabled, the instance is ready right away");
+            readiness.markReady();
+            return;
+        }
+        warmUp.start();
+    }
+
+    /**
+     * The limiters are picked up by {@link org.pulsar.currency.filter.AdmissionFilter}, which lets everything
+     * through when they are absent.
+     */
+    private void configureAdmission(ServletContext servletContext) {
+        if (!PropertiesUtils.getBoolean("admission.enabled", true)) {
+            log.info("Admission control is disabled");
+            return;
+        }
+
+        int permitsPerSecond = PropertiesUtils.getInt("admission.rate.permits-per-second", 0);
+        if (permitsPerSecond > 0) {
+            if (PropertiesUtils.get("admission.rate.client-header", null) == null) {
+                log.warn("Per-client rate limit is keyed on the remote address, behind a proxy all clients share one limit");
+            }
+            servletContext.setAttribute("clientRateLimiter", new ClientRateLimiter(permitsPerSecond,
+                    PropertiesUtils.getInt("admission.rate.burst", 200),
+                    PropertiesUtils.getInt("admission.rate.stripes", 1024)));
+        }
+
+        concurrencyLimit = new AdaptiveConcurrencyLimit(
+                PropertiesUtils.getInt("admission.concurrency.initial-limit", 100),
+                PropertiesUtils.getInt("admission.concurrency.min-limit", 10),
+                PropertiesUtils.getInt("admission.concurrency.max-limit", 1000),
+                PropertiesUtils.getInt("admission.concurrency.latency-tolerance-percent", 200) / 100.0,
+                Duration.ofMillis(PropertiesUtils.getLong("admission.concurrency.max-pool-wait-ms", 20)));
+        concurrencyLimit.start(Duration.ofMillis(PropertiesUtils.getLong("admission.concurrency.adjust-interval-ms", 500)));
+        servletContext.setAttribute("concurrencyLimit", concurrencyLimit);
+    }
+
+    private static RateUpdatePipeline createRateUpdatePipeline(ExchangeRateDao exchangeRateDao,
+                                                               ExchangeRateCache exchangeRateCache,
+                                                               DataVersion dataVersion) {
+        if (!PropertiesUtils.getBoolean("pipeline.enabled", false)) {
+            return null;
+        }
+
+        Duration window = Duration.ofMillis(PropertiesUtils.getLong("pipeline.window-ms", 20));
+        log.info("Rate updates are coalesced within {} and written in batches", window);
+        return new RateUpdatePipeline(exchangeRateDao,
+                exchangeRateCache,
+                dataVersion,
+                PropertiesUtils.getInt("pipeline.queue-capacity", 10_000),
+                window,
+                PropertiesUtils.getInt("pipeline.max-batch-size", 500),
+                Duration.ofMillis(PropertiesUtils.getLong("pipeline.ack-timeout-ms", 5000)));
+    }
+
+    private static ExchangeRateService createExchangeRateService(ExchangeRateDao exchangeRateDao,
+                                                                 ExchangeRateCache exchangeRateCache,
+                                                                 CrossRateEngine crossRateEngine,
+                                                                 CurrencyMapper currencyMapper,
+                                                                 DataVersion dataVersion,
+                                                                 RateUpdatePipeline rateUpdatePipeline,
+                                                                 NegativeCache missingPairs) {
         ExchangeRateMapper exchangeRateMapper = new ExchangeRateMapper(currencyMapper);
         Validator<ExchangeRateCreateRequest> createRequestValidator = new ExchangeCreateUpdateValidator();
         Validator<ExchangeRequest> exchangeRequestValidator = new ExchangeRequestValidator();
 
         return new ExchangeRateService(exchangeRateDao,
+                exchangeRateCache,
+                crossRateEngine,
                 exchangeRateMapper,
                 currencyMapper,
                 createRequestValidator,
-                exchangeRequestValidator);
+                exchangeRequestValidator,
+                dataVersion,
+                rateUpdatePipeline,
+                missingPairs);
+    }
+
+    private static NegativeCache createNegativeCache(String name, DataVersion dataVersion) {
+        return new NegativeCache(name,
+                dataVersion,
+                Duration.ofSeconds(PropertiesUtils.getLong("negative-cache.ttl-seconds", 30)),
+                PropertiesUtils.getInt("negative-cache.max-size", 10_000));
     }
 }
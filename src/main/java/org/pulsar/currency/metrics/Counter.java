@@ -0,0 +1,22 @@
+package org.pulsar.currency.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    Counter() {}
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
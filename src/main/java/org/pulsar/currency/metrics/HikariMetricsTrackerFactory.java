@@ -0,0 +1,57 @@
+package org.pulsar.currency.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connects HikariCP to {@link MetricsRegistry}: pool state as gauges,
+ * connection acquire and usage times as histograms.
+ */
+public class HikariMetricsTrackerFactory implements MetricsTrackerFactory {
+
+    private final MetricsRegistry registry;
+
+    public HikariMetricsTrackerFactory(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        registry.gauge("hikaricp_connections_active", "Connections in use",
+                poolStats::getActiveConnections, "pool", poolName);
+        registry.gauge("hikaricp_connections_idle", "Idle connections",
+                poolStats::getIdleConnections, "pool", poolName);
+        registry.gauge("hikaricp_connections_pending", "Threads waiting for a connection",
+                poolStats::getPendingThreads, "pool", poolName);
+        registry.gauge("hikaricp_connections", "Total connections",
+                poolStats::getTotalConnections, "pool", poolName);
+        registry.gauge("hikaricp_connections_max", "Maximum pool size",
+                poolStats::getMaxConnections, "pool", poolName);
+
+        return new Tracker(
+                registry.histogram("hikaricp_connections_acquire_seconds", "Time to acquire a connection", "pool", poolName),
+                registry.histogram("hikaricp_connections_usage_seconds", "Time a connection is held", "pool", poolName),
+                registry.counter("hikaricp_connections_timeout_total", "Connection acquire timeouts", "pool", poolName));
+    }
+
+    private record Tracker(Histogram acquire, Histogram usage, Counter timeouts) implements IMetricsTracker {
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquire.record(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usage.record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
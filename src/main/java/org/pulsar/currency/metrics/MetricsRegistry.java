@@ -0,0 +1,101 @@
+package org.pulsar.currency.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide set of metrics. A metric is identified by its name and labels,
+ * asking for the same pair again returns the already registered instance,
+ * so hot paths should look their metrics up once and keep the reference.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {}
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param labels label names and values in turn, e.g. {@code "method", "GET"}
+     */
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).metrics
+                .computeIfAbsent(formatLabels(labels), key -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) family(name, help, Type.HISTOGRAM).metrics
+                .computeIfAbsent(formatLabels(labels), key -> new Histogram());
+    }
+
+    /**
+     * @return the histograms registered under the name with any labels
+     */
+    public List<Histogram> histograms(String name) {
+        Family family = families.get(name);
+        if (family == null || family.type != Type.HISTOGRAM) {
+            return List.of();
+        }
+        return family.metrics.values().stream()
+                .map(Histogram.class::cast)
+                .toList();
+    }
+
+    public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+        family(name, help, Type.GAUGE).metrics.put(formatLabels(labels), supplier);
+    }
+
+    Map<String, Family> getFamilies() {
+        return families;
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.computeIfAbsent(name, key -> new Family(help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException("Metric '%s' is already registered as %s".formatted(name, family.type));
+        }
+        return family;
+    }
+
+    private static String formatLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name-value pairs");
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (!result.isEmpty()) {
+                result.append(',');
+            }
+            result.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return result.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    enum Type {
+        COUNTER, GAUGE, HISTOGRAM;
+
+        String prometheusName() {
+            return name().toLowerCase();
+        }
+    }
+
+    record Family(String help, Type type, Map<String, Object> metrics) {
+
+        Family(String help, Type type) {
+            this(help, type, new ConcurrentSkipListMap<>());
+        }
+    }
+}
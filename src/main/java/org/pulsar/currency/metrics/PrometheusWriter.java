@@ -0,0 +1,74 @@
+package org.pulsar.currency.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Writes the registry in the Prometheus text exposition format (version 0.0.4).
+ * Durations are recorded in nanoseconds and exposed in seconds.
+ */
+public final class PrometheusWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+    private static final double[] BUCKET_BOUNDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+    };
+
+    private final MetricsRegistry registry;
+
+    public PrometheusWriter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void write(Writer writer) throws IOException {
+        for (Map.Entry<String, MetricsRegistry.Family> entry : registry.getFamilies().entrySet()) {
+            String name = entry.getKey();
+            MetricsRegistry.Family family = entry.getValue();
+
+            writer.write("# HELP " + name + " " + family.help() + "\n");
+            writer.write("# TYPE " + name + " " + family.type().prometheusName() + "\n");
+            for (Map.Entry<String, Object> metric : family.metrics().entrySet()) {
+                writeMetric(writer, name, metric.getKey(), metric.getValue());
+            }
+        }
+    }
+
+    private void writeMetric(Writer writer, String name, String labels, Object metric) throws IOException {
+        switch (metric) {
+            case Counter counter -> writeSample(writer, name, labels, counter.get());
+            case DoubleSupplier gauge -> writeSample(writer, name, labels, gauge.getAsDouble());
+            case Histogram histogram -> writeHistogram(writer, name, labels, histogram);
+            default -> throw new IllegalStateException("Unknown metric " + metric);
+        }
+    }
+
+    private void writeHistogram(Writer writer, String name, String labels, Histogram histogram) throws IOException {
+        String separator = labels.isEmpty() ? "" : ",";
+        for (double bound : BUCKET_BOUNDS) {
+            long count = histogram.countAtOrBelow((long) (bound * NANOS_PER_SECOND));
+            writeSample(writer, name + "_bucket", labels + separator + "le=\"" + BigDecimal.valueOf(bound).toPlainString() + "\"", count);
+        }
+
+        long count = histogram.getCount();
+        writeSample(writer, name + "_bucket", labels + separator + "le=\"+Inf\"", count);
+        writeSample(writer, name + "_sum", labels, histogram.getSum() / NANOS_PER_SECOND);
+        writeSample(writer, name + "_count", labels, count);
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, double value) throws IOException {
+        writer.write(name);
+        if (!labels.isEmpty()) {
+            writer.write("{" + labels + "}");
+        }
+        writer.write(" ");
+        writer.write(value == Math.rint(value) && !Double.isInfinite(value)
+                ? Long.toString((long) value)
+                : Double.toString(value));
+        writer.write("\n");
+    }
+}
@@ -0,0 +1,21 @@
+package org.pulsar.currency.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+
+@Data
+@Builder
+@AllArgsConstructor
+public class ExchangeRateChange {
+
+    private long id;
+    private String baseCurrencyCode;
+    private String targetCurrencyCode;
+    private BigDecimal rate;
+    private Instant validFrom;
+}
@@ -1,5 +1,7 @@
 package org.pulsar.currency.service;
 
+import org.pulsar.currency.cache.NegativeCache;
+import org.pulsar.currency.cache.SingleFlight;
 import org.pulsar.currency.dao.CurrencyDao;
 import org.pulsar.currency.dto.currency.CurrencyCreateRequest;
 import org.pulsar.currency.dto.currency.CurrencyResponse;
@@ -10,20 +12,27 @@ import org.pulsar.currency.model.Currency;
 import org.pulsar.currency.util.StringUtils;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 public class CurrencyService {
 
     private final CurrencyDao currencyDao;
     private final CurrencyMapper currencyMapper;
+    private final DataVersion dataVersion;
+    private final NegativeCache missingCurrencies;
+    private final SingleFlight<String, List<Currency>> findAllFlight = new SingleFlight<>("currencies_all");
+    private final SingleFlight<String, Optional<Currency>> findByCodeFlight = new SingleFlight<>("currency");
 
-    public CurrencyService(CurrencyDao currencyDao, CurrencyMapper currencyMapper) {
+    public CurrencyService(CurrencyDao currencyDao, CurrencyMapper currencyMapper, DataVersion dataVersion, NegativeCache missingCurrencies) {
         this.currencyDao = currencyDao;
         this.currencyMapper = currencyMapper;
+        this.dataVersion = dataVersion;
+        this.missingCurrencies = missingCurrencies;
     }
 
     public List<CurrencyResponse> getAll() {
-        return currencyDao.findAll()
+        return findAllFlight.load("", currencyDao::findAll)
                 .stream()
                 .map(currencyMapper::mapToResponse)
                 .collect(Collectors.toList());
@@ -34,7 +43,7 @@ public class CurrencyService {
             throw new IllegalArgumentException("Invalid currency code");
         }
 
-        return currencyDao.findByCode(currencyCode)
+        return findByCode(currencyCode)
                 .map(currencyMapper::mapToResponse)
                 .orElseThrow(() -> new CurrencyNotFoundException(currencyCode));
     }
@@ -48,12 +57,18 @@ public class CurrencyService {
 
         Currency currency = currencyMapper.map(createRequest);
         currencyDao.save(currency);
+        dataVersion.bump();
 
         return currencyMapper.mapToResponse(currency);
     }
 
     public boolean isExists(String currencyCode) {
-        return currencyDao.findByCode(currencyCode).isPresent();
+        return findByCode(currencyCode).isPresent();
+    }
+
+    private Optional<Currency> findByCode(String currencyCode) {
+        return missingCurrencies.find(currencyCode,
+                () -> findByCodeFlight.load(currencyCode, () -> currencyDao.findByCode(currencyCode)));
     }
 
     private boolean isInvalid(CurrencyCreateRequest createRequest) {
@@ -0,0 +1,28 @@
+package org.pulsar.currency.service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version of the data held by this instance, bumped on every change of currencies or exchange rates.
+ * It tells what has been derived from the data, rendered bodies or negative cache entries, when to be
+ * rebuilt. The version is local to the instance and never sent to clients, ETags are hashes of the bodies.
+ */
+public class DataVersion {
+
+    private final AtomicReference<Stamp> current;
+
+    public DataVersion() {
+        this.current = new AtomicReference<>(new Stamp(0, System.currentTimeMillis()));
+    }
+
+    public Stamp current() {
+        return current.get();
+    }
+
+    public void bump() {
+        long now = System.currentTimeMillis();
+        current.updateAndGet(stamp -> new Stamp(stamp.version() + 1, Math.max(now, stamp.lastModified())));
+    }
+
+    public record Stamp(long version, long lastModified) {}
+}
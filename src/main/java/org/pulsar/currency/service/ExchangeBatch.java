@@ -0,0 +1,50 @@
+package org.pulsar.currency.service;
+
+import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.engine.CrossRate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conversions of one batch request. The rate of every distinct pair is resolved once
+ * and reused for the rest of the batch, including the "not found" outcome.
+ * Not thread-safe, a batch is meant to be processed by a single request thread.
+ */
+public final class ExchangeBatch {
+
+    private final ExchangeRateService exchangeRateService;
+    private final Map<String, Resolution> resolved = new HashMap<>();
+
+    ExchangeBatch(ExchangeRateService exchangeRateService) {
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    public ExchangeResponse exchange(ExchangeRequest exchangeRequest) {
+        exchangeRateService.validateExchangeRequest(exchangeRequest);
+        String baseCode = exchangeRequest.baseCurrencyCode();
+        String targetCode = exchangeRequest.targetCurrencyCode();
+
+        Resolution resolution = resolved.computeIfAbsent(baseCode + targetCode, key -> resolve(baseCode, targetCode));
+        if (resolution.error() != null) {
+            throw resolution.error();
+        }
+        return exchangeRateService.exchange(resolution.crossRate(), exchangeRequest.amount());
+    }
+
+    public int distinctPairs() {
+        return resolved.size();
+    }
+
+    private Resolution resolve(String baseCode, String targetCode) {
+        try {
+            return new Resolution(exchangeRateService.findCrossRate(baseCode, targetCode), null);
+        } catch (RuntimeException e) {
+            return new Resolution(null, e);
+        }
+    }
+
+    private record Resolution(CrossRate crossRate, RuntimeException error) {
+    }
+}
@@ -0,0 +1,85 @@
+package org.pulsar.currency.service;
+
+import org.pulsar.currency.cache.ExchangeRateCache;
+import org.pulsar.currency.cache.ExchangeRateHistoryCache;
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.dao.ExchangeRateHistoryDao;
+import org.pulsar.currency.dto.exchange.ExchangeRateChangeResponse;
+import org.pulsar.currency.dto.exchange.ExchangeRateHistoryResponse;
+import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.engine.CrossRate;
+import org.pulsar.currency.engine.CrossRateEngine;
+import org.pulsar.currency.exception.exchange.ExchangeRateNotFoundException;
+import org.pulsar.currency.model.ExchangeRate;
+import org.pulsar.currency.model.ExchangeRateChange;
+import org.pulsar.currency.util.StringUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Conversions and rate lookups at a moment in the past. Recent history is answered
+ * from {@link ExchangeRateHistoryCache}, anything older from the history table.
+ */
+public class ExchangeRateHistoryService {
+
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateDao exchangeRateDao;
+    private final ExchangeRateHistoryDao historyDao;
+    private final ExchangeRateHistoryCache historyCache;
+    private final ExchangeRateCache exchangeRateCache;
+    private final CrossRateEngine crossRateEngine;
+
+    public ExchangeRateHistoryService(ExchangeRateService exchangeRateService,
+                                      ExchangeRateDao exchangeRateDao,
+                                      ExchangeRateHistoryDao historyDao,
+                                      ExchangeRateHistoryCache historyCache,
+                                      ExchangeRateCache exchangeRateCache,
+                                      CrossRateEngine crossRateEngine) {
+        this.exchangeRateService = exchangeRateService;
+        this.exchangeRateDao = exchangeRateDao;
+        this.historyDao = historyDao;
+        this.historyCache = historyCache;
+        this.exchangeRateCache = exchangeRateCache;
+        this.crossRateEngine = crossRateEngine;
+    }
+
+    public ExchangeResponse exchangeAt(ExchangeRequest exchangeRequest, Instant at) {
+        exchangeRateService.validateExchangeRequest(exchangeRequest);
+        String baseCode = exchangeRequest.baseCurrencyCode();
+        String targetCode = exchangeRequest.targetCurrencyCode();
+
+        List<ExchangeRate> candidates = historyCache.findCandidatesAt(baseCode, targetCode, crossRateEngine.getPivots(), at)
+                .orElseGet(() -> exchangeRateDao.findCandidatesAt(baseCode, targetCode, crossRateEngine.getPivots(), at));
+        CrossRate crossRate = crossRateEngine.find(candidates, baseCode, targetCode)
+                .orElseThrow(() -> new ExchangeRateNotFoundException(baseCode, targetCode));
+
+        return exchangeRateService.exchange(crossRate, exchangeRequest.amount());
+    }
+
+    public ExchangeRateHistoryResponse getHistory(String baseCode, String targetCode, Instant from, Instant to) {
+        if (StringUtils.isNullOrBlank(baseCode) || StringUtils.isNullOrBlank(targetCode)
+                || from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Invalid history request");
+        } else if (exchangeRateCache.findByCodes(baseCode, targetCode).isEmpty()) {
+            throw new ExchangeRateNotFoundException(baseCode, targetCode);
+        }
+
+        List<ExchangeRateChange> changes = historyCache.findRange(baseCode, targetCode, from, to)
+                .orElseGet(() -> historyDao.findRange(baseCode, targetCode, from, to));
+
+        return ExchangeRateHistoryResponse.builder()
+                .baseCurrencyCode(baseCode)
+                .targetCurrencyCode(targetCode)
+                .from(from)
+                .to(to)
+                .rates(changes.stream()
+                        .map(change -> ExchangeRateChangeResponse.builder()
+                                .validFrom(change.getValidFrom())
+                                .rate(change.getRate())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
@@ -1,11 +1,20 @@
 package org.pulsar.currency.service;
 
+import org.pulsar.currency.cache.ExchangeRateCache;
+import org.pulsar.currency.cache.NegativeCache;
+import org.pulsar.currency.cache.SingleFlight;
 import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.dao.ExchangeRateQuery;
 import org.pulsar.currency.dto.currency.CurrencyResponse;
 import org.pulsar.currency.dto.exchange.ExchangeRateCreateRequest;
+import org.pulsar.currency.dto.exchange.ExchangeRateImportResponse;
+import org.pulsar.currency.dto.exchange.ExchangeRateImportRow;
 import org.pulsar.currency.dto.exchange.ExchangeRateResponse;
 import org.pulsar.currency.dto.exchange.ExchangeRequest;
 import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.engine.CrossRate;
+import org.pulsar.currency.engine.CrossRateEngine;
+import org.pulsar.currency.engine.FixedPoint;
 import org.pulsar.currency.exception.exchange.ExchangeRateNotFoundException;
 import org.pulsar.currency.mapper.CurrencyMapper;
 import org.pulsar.currency.mapper.ExchangeRateMapper;
@@ -15,35 +24,58 @@ import org.pulsar.currency.util.StringUtils;
 import org.pulsar.currency.validation.Validator;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 // Можно и даже нужно продолжить рефакторинг, но мне лень :)
 public class ExchangeRateService {
 
     private final ExchangeRateDao exchangeRateDao;
+    private final ExchangeRateCache exchangeRateCache;
+    private final CrossRateEngine crossRateEngine;
     private final ExchangeRateMapper exchangeRateMapper;
     private final CurrencyMapper currencyMapper;
     private final Validator<ExchangeRateCreateRequest> createRequestValidator;
     private final Validator<ExchangeRequest> exchangeRequestValidator;
+    private final DataVersion dataVersion;
+    private final RateUpdatePipeline updatePipeline;
+    private final NegativeCache missingPairs;
+    private final Map<Currency, CurrencyResponse> currencyResponses = new ConcurrentHashMap<>();
+    private final SingleFlight<String, List<ExchangeRate>> candidatesFlight = new SingleFlight<>("exchange_rate_candidates");
 
-    public ExchangeRateService(ExchangeRateDao exchangeRateDao, ExchangeRateMapper exchangeRateMapper, CurrencyMapper currencyMapper, Validator<ExchangeRateCreateRequest> createRequestValidator, Validator<ExchangeRequest> exchangeRequestValidator) {
+    public ExchangeRateService(ExchangeRateDao exchangeRateDao, ExchangeRateCache exchangeRateCache, CrossRateEngine crossRateEngine, ExchangeRateMapper exchangeRateMapper, CurrencyMapper currencyMapper, Validator<ExchangeRateCreateRequest> createRequestValidator, Validator<ExchangeRequest> exchangeRequestValidator, DataVersion dataVersion, RateUpdatePipeline updatePipeline, NegativeCache missingPairs) {
         this.exchangeRateDao = exchangeRateDao;
+        this.exchangeRateCache = exchangeRateCache;
+        this.crossRateEngine = crossRateEngine;
         this.exchangeRateMapper = exchangeRateMapper;
         this.currencyMapper = currencyMapper;
         this.createRequestValidator = createRequestValidator;
         this.exchangeRequestValidator = exchangeRequestValidator;
+        this.dataVersion = dataVersion;
+        this.updatePipeline = updatePipeline;
+        this.missingPairs = missingPairs;
     }
 
     public List<ExchangeRateResponse> getAll() {
-        return exchangeRateDao.findAll()
+        return exchangeRateCache.findAll()
                 .stream()
                 .map(exchangeRateMapper::mapToResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Streams a page straight from the database, bypassing the cache.
+     */
+    public void streamPage(ExchangeRateQuery query, Consumer<ExchangeRateResponse> consumer) {
+        exchangeRateDao.stream(query, exchangeRate -> consumer.accept(exchangeRateMapper.mapToResponse(exchangeRate)));
+    }
+
     public ExchangeRateResponse getByCodes(String baseCurrencyCode, String targetCurrencyCode) {
         if (StringUtils.isNullOrBlank(baseCurrencyCode) || StringUtils.isNullOrBlank(targetCurrencyCode)) {
             throw new IllegalArgumentException("Invalid currencies codes");
@@ -51,22 +83,33 @@ public class ExchangeRateService {
             throw new IllegalArgumentException("Invalid currencies codes");
         }
 
-        return exchangeRateDao.findByCodes(baseCurrencyCode, targetCurrencyCode)
+        return findByCodes(baseCurrencyCode, targetCurrencyCode)
                 .map(exchangeRateMapper::mapToResponse)
                 .orElseThrow(() -> new ExchangeRateNotFoundException(baseCurrencyCode, targetCurrencyCode));
     }
 
+    /**
+     * Until the cache is loaded, a pair that doesn't exist is only looked up in the database once per TTL.
+     */
+    private Optional<ExchangeRate> findByCodes(String baseCurrencyCode, String targetCurrencyCode) {
+        if (exchangeRateCache.isLoaded()) {
+            return exchangeRateCache.findByCodes(baseCurrencyCode, targetCurrencyCode);
+        }
+        return missingPairs.find("rate:" + baseCurrencyCode + '/' + targetCurrencyCode,
+                () -> exchangeRateCache.findByCodes(baseCurrencyCode, targetCurrencyCode));
+    }
+
     public ExchangeRateResponse create(ExchangeRateCreateRequest createRequest) {
         if (!createRequestValidator.validate(createRequest).isValid()) {
             throw new IllegalArgumentException("Invalid create request: " + createRequest);
         }
 
         ExchangeRate exchangeRate = exchangeRateMapper.map(createRequest);
-        exchangeRateDao.save(exchangeRate);
+        ExchangeRate saved = exchangeRateDao.save(exchangeRate);
+        exchangeRateCache.put(saved);
+        dataVersion.bump();
 
-        return exchangeRateDao.findByCodes(createRequest.baseCurrencyCode(), createRequest.targetCurrencyCode())
-                .map(exchangeRateMapper::mapToResponse)
-                .orElseThrow();
+        return exchangeRateMapper.mapToResponse(saved);
     }
 
     public ExchangeRateResponse update(ExchangeRateCreateRequest updateRequest) {
@@ -75,71 +118,163 @@ public class ExchangeRateService {
         }
 
         ExchangeRate exchangeRate = exchangeRateMapper.map(updateRequest);
-        exchangeRateDao.update(exchangeRate);
+        if (updatePipeline != null) {
+            return exchangeRateMapper.mapToResponse(updatePipeline.update(exchangeRate));
+        }
+        ExchangeRate updated = exchangeRateDao.update(exchangeRate)
+                .orElseThrow(() -> new ExchangeRateNotFoundException(
+                        updateRequest.baseCurrencyCode(), updateRequest.targetCurrencyCode()));
+        exchangeRateCache.put(updated);
+        dataVersion.bump();
 
-        return exchangeRateDao.findByCodes(updateRequest.baseCurrencyCode(), updateRequest.targetCurrencyCode())
-                .map(exchangeRateMapper::mapToResponse)
-                .orElseThrow();
+        return exchangeRateMapper.mapToResponse(updated);
+    }
+
+    /**
+     * Validates every row, writes the valid ones in one transaction and then reloads the cache once,
+     * instead of patching it row by row.
+     */
+    public ExchangeRateImportResponse importRates(Iterator<ExchangeRateCreateRequest> rows, int batchSize) {
+        List<ExchangeRateImportRow> results = new ArrayList<>();
+        List<ExchangeRateCreateRequest> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+
+        while (rows.hasNext()) {
+            ExchangeRateCreateRequest row = rows.next();
+            if (row != null && createRequestValidator.validate(row).isValid()) {
+                validIndexes.add(results.size());
+                valid.add(row);
+                results.add(null);
+            } else {
+                results.add(importRow(results.size(), row, ExchangeRateImportRow.Status.INVALID,
+                        "Некорректные коды валют или курс"));
+            }
+        }
+
+        List<ExchangeRate> exchangeRates = valid.stream()
+                .map(exchangeRateMapper::map)
+                .toList();
+        boolean[] written = exchangeRates.isEmpty() ? new boolean[0] : exchangeRateDao.upsertAll(exchangeRates, batchSize);
+
+        int imported = 0;
+        for (int i = 0; i < written.length; i++) {
+            int index = validIndexes.get(i);
+            if (written[i]) {
+                imported++;
+                results.set(index, importRow(index, valid.get(i), ExchangeRateImportRow.Status.IMPORTED, null));
+            } else {
+                results.set(index, importRow(index, valid.get(i), ExchangeRateImportRow.Status.CURRENCY_NOT_FOUND,
+                        "Одна или обе валюты не найдены"));
+            }
+        }
+
+        if (imported > 0) {
+            if (exchangeRateCache.isLoaded()) {
+                exchangeRateCache.reload();
+            }
+            dataVersion.bump();
+        }
+
+        return ExchangeRateImportResponse.builder()
+                .imported(imported)
+                .failed(results.size() - imported)
+                .rows(results)
+                .build();
+    }
+
+    private static ExchangeRateImportRow importRow(int index,
+                                                   ExchangeRateCreateRequest row,
+                                                   ExchangeRateImportRow.Status status,
+                                                   String error) {
+        return ExchangeRateImportRow.builder()
+                .index(index)
+                .baseCurrencyCode(row != null ? row.baseCurrencyCode() : null)
+                .targetCurrencyCode(row != null ? row.targetCurrencyCode() : null)
+                .status(status)
+                .error(error)
+                .build();
     }
 
     public ExchangeResponse exchange(ExchangeRequest exchangeRequest) {
+        validateExchangeRequest(exchangeRequest);
+        CrossRate crossRate = findCrossRate(exchangeRequest.baseCurrencyCode(), exchangeRequest.targetCurrencyCode());
+        return exchange(crossRate, exchangeRequest.amount());
+    }
+
+    /**
+     * Starts a batch of conversions, every distinct pair of the batch is resolved only once.
+     */
+    public ExchangeBatch startBatch() {
+        return new ExchangeBatch(this);
+    }
+
+    void validateExchangeRequest(ExchangeRequest exchangeRequest) {
         if (!exchangeRequestValidator.validate(exchangeRequest).isValid()) {
             throw new IllegalArgumentException();
         }
+    }
 
-        Optional<ExchangeRate> directExchangeRate = exchangeRateDao.findByCodes(
-                exchangeRequest.baseCurrencyCode(),
-                exchangeRequest.targetCurrencyCode()
-        );
+    CrossRate findCrossRate(String baseCurrencyCode, String targetCurrencyCode) {
+        Optional<CrossRate> crossRate = crossRateEngine.isReady()
+                ? crossRateEngine.find(baseCurrencyCode, targetCurrencyCode)
+                : missingPairs.find("route:" + baseCurrencyCode + '/' + targetCurrencyCode,
+                        () -> findCrossRateWithoutEngine(baseCurrencyCode, targetCurrencyCode));
 
-        BigDecimal amount = new BigDecimal(exchangeRequest.amount());
-        if (directExchangeRate.isPresent()) {
-            return exchange(directExchangeRate.get(), amount);
-        }
+        return crossRate.orElseThrow(() -> new ExchangeRateNotFoundException(baseCurrencyCode, targetCurrencyCode));
+    }
 
-        Optional<ExchangeRate> reverseExchangeRate = exchangeRateDao.findByCodes(
-                exchangeRequest.targetCurrencyCode(),
-                exchangeRequest.baseCurrencyCode());
-
-        if (reverseExchangeRate.isPresent()) {
-            ExchangeRate exchangeRate = reverseExchangeRate.get();
-            Currency baseCurrency = exchangeRate.getBaseCurrency();
-            Currency targetCurrency = exchangeRate.getTargetCurrency();
-            exchangeRate.setBaseCurrency(targetCurrency);
-            exchangeRate.setTargetCurrency(baseCurrency);
-            exchangeRate.setRate(BigDecimal.ONE.divide(exchangeRate.getRate(), 6, RoundingMode.HALF_UP));
-            return exchange(exchangeRate, amount);
-        }
+    /**
+     * All the rates a conversion may need are fetched in one round trip, the path is then chosen in memory.
+     * Concurrent conversions of the same pair share the round trip.
+     */
+    private Optional<CrossRate> findCrossRateWithoutEngine(String baseCurrencyCode, String targetCurrencyCode) {
+        List<ExchangeRate> candidates = candidatesFlight.load(baseCurrencyCode + '/' + targetCurrencyCode,
+                () -> exchangeRateDao.findCandidates(
+                        baseCurrencyCode,
+                        targetCurrencyCode,
+                        crossRateEngine.getPivots()));
+
+        return crossRateEngine.find(candidates, baseCurrencyCode, targetCurrencyCode);
+    }
 
-        String usdCode = "USD";
-        Optional<ExchangeRate> baseExchangeRate = exchangeRateDao.findByCodes(usdCode, exchangeRequest.baseCurrencyCode());
-        Optional<ExchangeRate> targetExchangeRate = exchangeRateDao.findByCodes(usdCode, exchangeRequest.targetCurrencyCode());
-
-        if (baseExchangeRate.isPresent() && targetExchangeRate.isPresent()) {
-            BigDecimal rate = baseExchangeRate.get().getRate().divide(targetExchangeRate.get().getRate(), 6, RoundingMode.HALF_UP);
-            ExchangeRate build = ExchangeRate.builder()
-                    .baseCurrency(baseExchangeRate.get().getTargetCurrency())
-                    .targetCurrency(targetExchangeRate.get().getTargetCurrency())
-                    .rate(rate)
-                    .build();
-            return exchange(build, amount);
+    /**
+     * The amount is parsed once, into fixed point, and multiplied by the fixed-point rate of the route:
+     * the result has exactly the value and scale of {@code rate.multiply(amount)} on {@code BigDecimal},
+     * which is still used for amounts that aren't plain decimals and for products that overflow a {@code long}.
+     */
+    ExchangeResponse exchange(CrossRate crossRate, String amount) {
+        long unscaledAmount = FixedPoint.parseUnscaled(amount);
+        if (unscaledAmount != FixedPoint.INVALID && crossRate.isFixedPoint()) {
+            long product = FixedPoint.multiply(crossRate.unscaledRate(), unscaledAmount);
+            if (product != FixedPoint.INVALID) {
+                int amountScale = FixedPoint.scaleOf(amount);
+                return exchangeResponse(crossRate,
+                        BigDecimal.valueOf(unscaledAmount, amountScale),
+                        BigDecimal.valueOf(product, crossRate.rateScale() + amountScale));
+            }
         }
 
-        throw new ExchangeRateNotFoundException(exchangeRequest.baseCurrencyCode(), exchangeRequest.targetCurrencyCode());
+        BigDecimal decimalAmount = new BigDecimal(amount);
+        return exchangeResponse(crossRate, decimalAmount, crossRate.rate().multiply(decimalAmount));
     }
 
-    private ExchangeResponse exchange(ExchangeRate exchangeRate, BigDecimal amount) {
-        CurrencyResponse baseCurrency = currencyMapper.mapToResponse(exchangeRate.getBaseCurrency());
-        CurrencyResponse targetCurrency = currencyMapper.mapToResponse(exchangeRate.getTargetCurrency());
-        BigDecimal rate = exchangeRate.getRate();
-        BigDecimal convertedAmount = rate.multiply(amount);
+    private ExchangeResponse exchangeResponse(CrossRate crossRate, BigDecimal amount, BigDecimal convertedAmount) {
+        return new ExchangeResponse(currencyResponse(crossRate.baseCurrency()),
+                currencyResponse(crossRate.targetCurrency()),
+                crossRate.rate(),
+                amount,
+                convertedAmount);
+    }
 
-        return ExchangeResponse.builder()
-                .baseCurrency(baseCurrency)
-                .targetCurrency(targetCurrency)
-                .rate(exchangeRate.getRate())
-                .amount(amount)
-                .convertedAmount(convertedAmount)
-                .build();
+    /**
+     * Currencies never change once created, their responses are mapped once.
+     */
+    private CurrencyResponse currencyResponse(Currency currency) {
+        CurrencyResponse response = currencyResponses.get(currency);
+        if (response == null) {
+            response = currencyMapper.mapToResponse(currency);
+            currencyResponses.put(currency, response);
+        }
+        return response;
     }
 }
@@ -0,0 +1,265 @@
+package org.pulsar.currency.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pulsar.currency.cache.ExchangeRateCache;
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.exception.DatabaseException;
+import org.pulsar.currency.exception.OverloadedException;
+import org.pulsar.currency.exception.exchange.ExchangeRateNotFoundException;
+import org.pulsar.currency.metrics.Counter;
+import org.pulsar.currency.metrics.Histogram;
+import org.pulsar.currency.metrics.MetricsRegistry;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Funnels rate updates through a bounded queue into a single writer. Updates arriving within
+ * one window are collapsed per pair, the last one wins, and written in one transaction.
+ * A caller is acknowledged once the transaction has committed; a caller whose update was
+ * superseded within the window gets the rate that has actually been stored. When the transaction
+ * of a batch fails, its pairs are written again one by one, so that one bad row only fails its own
+ * callers. Once a transaction has committed its updates are never written again.
+ */
+@Slf4j
+public class RateUpdatePipeline implements AutoCloseable {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final ExchangeRateDao exchangeRateDao;
+    private final ExchangeRateCache exchangeRateCache;
+    private final DataVersion dataVersion;
+    private final BlockingQueue<PendingUpdate> queue;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long ackTimeoutNanos;
+    private final Thread writer;
+
+    private final Histogram flushTimer;
+    private final Counter submitted;
+    private final Counter coalesced;
+
+    private volatile boolean running = true;
+    // set by the writer before it fails what is left in the queue
+    private volatile boolean stopped;
+
+    public RateUpdatePipeline(ExchangeRateDao exchangeRateDao,
+                              ExchangeRateCache exchangeRateCache,
+                              DataVersion dataVersion,
+                              int queueCapacity,
+                              Duration window,
+                              int maxBatchSize,
+                              Duration ackTimeout) {
+        this.exchangeRateDao = exchangeRateDao;
+        this.exchangeRateCache = exchangeRateCache;
+        this.dataVersion = dataVersion;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.ackTimeoutNanos = ackTimeout.toNanos();
+
+        MetricsRegistry registry = MetricsRegistry.getInstance();
+        registry.gauge("rate_update_queue_depth", "Rate updates waiting to be written", queue::size);
+        this.flushTimer = registry.histogram("rate_update_flush_seconds", "Time to write one batch of rate updates");
+        this.submitted = registry.counter("rate_updates_submitted_total", "Rate updates accepted by the pipeline");
+        this.coalesced = registry.counter("rate_updates_coalesced_total", "Rate updates superseded before being written");
+
+        this.writer = new Thread(this::run, "rate-update-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Blocks until the update is durable.
+     *
+     * @return the rate stored for the pair
+     * @throws OverloadedException if the queue is full or the update hasn't been written within the timeout,
+     *                             in which case it may still be written later
+     */
+    public ExchangeRate update(ExchangeRate exchangeRate) {
+        try {
+            return submit(exchangeRate).get(ackTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new OverloadedException("Rate update hasn't been written in time");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DatabaseException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rate update", e);
+        }
+    }
+
+    public CompletableFuture<ExchangeRate> submit(ExchangeRate exchangeRate) {
+        PendingUpdate update = new PendingUpdate(exchangeRate, new CompletableFuture<>());
+        if (!running || !queue.offer(update)) {
+            throw new OverloadedException("Rate update queue is full");
+        }
+        // the writer may have drained the queue for the last time in between, then nobody would take it
+        if (stopped && queue.remove(update)) {
+            throw new OverloadedException("Rate update pipeline has been stopped");
+        }
+        submitted.increment();
+        return update.result();
+    }
+
+    private void run() {
+        List<PendingUpdate> batch = new ArrayList<>();
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingUpdate first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectWindow(batch);
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped = true;
+            queue.drainTo(batch);
+            batch.forEach(update -> update.result()
+                    .completeExceptionally(new OverloadedException("Rate update pipeline has been stopped")));
+        }
+    }
+
+    private void collectWindow(List<PendingUpdate> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingUpdate next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void flush(List<PendingUpdate> batch) {
+        long start = System.nanoTime();
+
+        Map<String, List<PendingUpdate>> byPair = new LinkedHashMap<>();
+        for (PendingUpdate update : batch) {
+            byPair.computeIfAbsent(key(update.exchangeRate()), key -> new ArrayList<>()).add(update);
+        }
+        coalesced.add(batch.size() - byPair.size());
+
+        try {
+            write(byPair);
+        } catch (Exception e) {
+            if (byPair.size() == 1) {
+                log.error("Error while writing a rate update", e);
+                batch.forEach(update -> update.result().completeExceptionally(e));
+            } else {
+                log.warn("Error while writing {} rate updates, writing them one by one", byPair.size(), e);
+                byPair.forEach(this::writeAlone);
+            }
+        } finally {
+            flushTimer.recordSince(start);
+        }
+    }
+
+    private void writeAlone(String key, List<PendingUpdate> updates) {
+        try {
+            write(Map.of(key, updates));
+        } catch (Exception e) {
+            log.error("Error while writing the rate update of {}", key, e);
+            updates.forEach(update -> update.result().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Writes the last update of every pair in one transaction and completes the callers.
+     * Throws only when the transaction has failed, nothing has been written then.
+     */
+    private void write(Map<String, List<PendingUpdate>> byPair) {
+        List<ExchangeRate> latest = byPair.values().stream()
+                .map(updates -> updates.getLast().exchangeRate())
+                .toList();
+
+        boolean[] written = exchangeRateDao.updateAll(latest, maxBatchSize);
+        try {
+            acknowledge(byPair, latest, written);
+        } catch (Exception e) {
+            log.error("Error while reading back {} committed rate updates", byPair.size(), e);
+            byPair.values().forEach(updates -> updates.forEach(update -> update.result().completeExceptionally(e)));
+        }
+    }
+
+    /**
+     * Completes the callers with the rates read back after the commit. A cache that couldn't be patched
+     * catches up with the next notification or refresh, the callers still get their rates.
+     */
+    private void acknowledge(Map<String, List<PendingUpdate>> byPair, List<ExchangeRate> latest, boolean[] written) {
+        List<String[]> writtenPairs = new ArrayList<>();
+        for (int i = 0; i < written.length; i++) {
+            if (written[i]) {
+                ExchangeRate exchangeRate = latest.get(i);
+                writtenPairs.add(new String[]{
+                        exchangeRate.getBaseCurrency().getCode(), exchangeRate.getTargetCurrency().getCode()});
+            }
+        }
+
+        Map<String, ExchangeRate> stored = new LinkedHashMap<>();
+        if (!writtenPairs.isEmpty()) {
+            exchangeRateDao.findByCodePairs(writtenPairs).forEach(exchangeRate -> stored.put(key(exchangeRate), exchangeRate));
+            try {
+                exchangeRateCache.putAll(List.copyOf(stored.values()));
+            } catch (Exception e) {
+                log.error("Error while patching the cache with {} rate updates", stored.size(), e);
+            }
+            dataVersion.bump();
+        }
+
+        byPair.forEach((key, updates) -> {
+            ExchangeRate exchangeRate = stored.get(key);
+            for (PendingUpdate update : updates) {
+                if (exchangeRate != null) {
+                    update.result().complete(exchangeRate);
+                } else {
+                    update.result().completeExceptionally(new ExchangeRateNotFoundException(
+                            update.exchangeRate().getBaseCurrency().getCode(),
+                            update.exchangeRate().getTargetCurrency().getCode()));
+                }
+            }
+        });
+    }
+
+    private static String key(ExchangeRate exchangeRate) {
+        return exchangeRate.getBaseCurrency().getCode() + exchangeRate.getTargetCurrency().getCode();
+    }
+
+    /**
+     * Stops accepting updates and waits for the queued ones to be written.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record PendingUpdate(ExchangeRate exchangeRate, CompletableFuture<ExchangeRate> result) {}
+}
@@ -0,0 +1,65 @@
+package org.pulsar.currency.util;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lets through at most one log line per interval for statements on the hot path and counts the rest.
+ * A call that isn't sampled costs a clock read and a counter increment, nothing is formatted.
+ */
+public final class LogSampler {
+
+    private final long intervalNanos;
+    private final AtomicLong nextSample;
+    private final LongAdder skipped = new LongAdder();
+
+    private LogSampler(long intervalNanos) {
+        this.intervalNanos = intervalNanos;
+        this.nextSample = new AtomicLong(System.nanoTime());
+    }
+
+    public static LogSampler every(Duration interval) {
+        return new LogSampler(interval.toNanos());
+    }
+
+    /**
+     * For DAO lookups, which run on every request: their per-call lines are DEBUG and one sampled INFO line
+     * per {@code log.hot-path-sample-seconds} stands for them, see {@link #logLookup}.
+     */
+    public static LogSampler forLookups() {
+        return every(Duration.ofSeconds(PropertiesUtils.getLong("log.hot-path-sample-seconds", 10)));
+    }
+
+    /**
+     * @return whether this call should be logged
+     */
+    public boolean sample() {
+        long now = System.nanoTime();
+        long next = nextSample.get();
+        if (now - next >= 0 && nextSample.compareAndSet(next, now + intervalNanos)) {
+            return true;
+        }
+        skipped.increment();
+        return false;
+    }
+
+    /**
+     * Logs the duration of a lookup started at {@code startNanos} if this call is sampled.
+     */
+    public void logLookup(Logger log, String method, long startNanos) {
+        if (sample()) {
+            log.info("{} took {} µs, {} more lookups since the previous line",
+                    method, (System.nanoTime() - startNanos) / 1_000, skipped());
+        }
+    }
+
+    /**
+     * @return calls that haven't been logged since the previous sample
+     */
+    public long skipped() {
+        return skipped.sumThenReset();
+    }
+}
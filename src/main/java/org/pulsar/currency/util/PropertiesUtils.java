@@ -0,0 +1,61 @@
+package org.pulsar.currency.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Properties;
+
+public final class PropertiesUtils {
+
+    private static final String DEFAULT_PROPERTIES_FILE = "application.properties";
+    private static final Properties PROPERTIES = loadProperties();
+
+    private PropertiesUtils() {}
+
+    /**
+     * Returns the value of the property, the environment variable with the same name
+     * in upper snake case (e.g. {@code CACHE_REFRESH_INTERVAL_SECONDS}) takes precedence.
+     */
+    public static String get(String key) {
+        String envValue = System.getenv(toEnvName(key));
+        return envValue != null ? envValue : PROPERTIES.getProperty(key);
+    }
+
+    public static String get(String key, String defaultValue) {
+        String value = get(key);
+        return StringUtils.isNullOrBlank(value) ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key);
+        return StringUtils.isNullOrBlank(value) ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key);
+        return StringUtils.isNullOrBlank(value) ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key);
+        return StringUtils.isNullOrBlank(value) ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    public static String toEnvName(String key) {
+        return key.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+
+    private static Properties loadProperties() {
+        Properties properties = new Properties();
+
+        try (InputStream fileStream = PropertiesUtils.class.getClassLoader().getResourceAsStream(DEFAULT_PROPERTIES_FILE)) {
+            if (fileStream != null) {
+                properties.load(fileStream);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return properties;
+    }
+}
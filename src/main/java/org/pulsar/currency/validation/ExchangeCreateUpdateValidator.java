@@ -32,6 +32,10 @@ public class ExchangeCreateUpdateValidator implements Validator<ExchangeRateCrea
     }
 
     private void validateRate(String strRate, ValidationResult validationResult) {
+        if (strRate == null) {
+            return;
+        }
+
         BigDecimal rate;
         try {
             rate = new BigDecimal(strRate);
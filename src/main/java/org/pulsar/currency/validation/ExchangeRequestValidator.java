@@ -1,6 +1,7 @@
 package org.pulsar.currency.validation;
 
 import org.pulsar.currency.dto.exchange.ExchangeRequest;
+import org.pulsar.currency.engine.FixedPoint;
 import org.pulsar.currency.util.StringUtils;
 
 import java.math.BigDecimal;
@@ -31,6 +32,19 @@ public class ExchangeRequestValidator implements Validator<ExchangeRequest> {
     }
 
     private void validateAmount(String strAmount, ValidationResult validationResult) {
+        if (strAmount == null) {
+            return;
+        }
+
+        // plain decimals, nearly every request, are checked without allocating
+        long unscaled = FixedPoint.parseUnscaled(strAmount);
+        if (unscaled != FixedPoint.INVALID) {
+            if (unscaled == 0) {
+                validationResult.add(new Error("Amount must be greater than 0"));
+            }
+            return;
+        }
+
         BigDecimal amount;
         try {
             amount = new BigDecimal(strAmount);
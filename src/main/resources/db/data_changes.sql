@@ -0,0 +1,2 @@
+-- Database-wide version of the data, every change announced to the other instances takes the next value
+CREATE SEQUENCE IF NOT EXISTS data_change_seq;
@@ -0,0 +1,33 @@
+-- Append-only log of rate changes, written in the same statement as the change itself
+CREATE TABLE IF NOT EXISTS exchange_rate_history
+(
+    id                 BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    base_currency_id   UUID           NOT NULL REFERENCES currencies (id),
+    target_currency_id UUID           NOT NULL REFERENCES currencies (id),
+    rate               NUMERIC        NOT NULL,
+    valid_from         TIMESTAMPTZ    NOT NULL DEFAULT now(),
+    -- Transaction that wrote the change. Catch-up follows it instead of valid_from, which is the start
+    -- of the transaction: a long transaction commits changes that are older than changes already read
+    txid               XID8           NOT NULL DEFAULT pg_current_xact_id()
+);
+
+-- As-of and range lookups of a pair are served by an index-only scan
+CREATE INDEX IF NOT EXISTS exchange_rate_history_pair_time_idx
+    ON exchange_rate_history (base_currency_id, target_currency_id, valid_from) INCLUDE (rate, id);
+
+-- Used to load the recent window
+CREATE INDEX IF NOT EXISTS exchange_rate_history_time_idx
+    ON exchange_rate_history (valid_from);
+
+-- Used to catch up with changes made by other instances
+CREATE INDEX IF NOT EXISTS exchange_rate_history_txid_idx
+    ON exchange_rate_history (txid);
+
+-- Pairs without history, e.g. created before the history existed, start from their current rate
+INSERT INTO exchange_rate_history (base_currency_id, target_currency_id, rate)
+SELECT er.base_currency_id, er.target_currency_id, er.rate
+FROM exchange_rates er
+WHERE NOT EXISTS (SELECT 1
+                  FROM exchange_rate_history h
+                  WHERE h.base_currency_id = er.base_currency_id
+                    AND h.target_currency_id = er.target_currency_id);
@@ -0,0 +1,163 @@
+package org.pulsar.currency.admission;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pulsar.currency.metrics.Histogram;
+import org.pulsar.currency.metrics.MetricsRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long LOOKUP_MICROS = 100;
+
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+    private final Histogram lookup = daoTimer("findByCodes");
+    private final Histogram scan = daoTimer("findAll");
+    private final Histogram poolWait = registry.histogram("hikaricp_connections_acquire_seconds",
+            "Time to acquire a connection", "pool", "test");
+
+    private AdaptiveConcurrencyLimit limit;
+
+    @AfterEach
+    void tearDown() {
+        if (limit != null) {
+            limit.close();
+        }
+    }
+
+    @Test
+    void admitsUpToTheLimit() {
+        limit = start(3, 1, 10);
+
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+
+        limit.release();
+        assertThat(limit.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void cutsByATenthWhenQueriesSlowDown() {
+        limit = start(100, 10, 1000);
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        interval(lookup, 100, LOOKUP_MICROS * 3);
+
+        assertThat(limit.getLimit()).isEqualTo(90);
+    }
+
+    @Test
+    void keepsTheLimitWhenMoreSlowMethodsAreCalled() {
+        limit = start(100, 10, 1000);
+        record(scan, 1, 50_000);
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        // ten full scans take far longer than the lookups, but each method is as fast as before
+        record(scan, 10, 50_000);
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        assertThat(limit.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    void cutsWhenConnectionsAreWaitedFor() {
+        limit = start(100, 10, 1000);
+        record(poolWait, 10, 50_000);
+
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        assertThat(limit.getLimit()).isEqualTo(90);
+    }
+
+    @Test
+    void growsByATwentiethWhenRequestsWereTurnedAway() {
+        limit = start(100, 10, 1000);
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        saturate();
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        assertThat(limit.getLimit()).isEqualTo(105);
+    }
+
+    @Test
+    void keepsTheLimitWhenNothingWasTurnedAway() {
+        limit = start(100, 10, 1000);
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        assertThat(limit.getLimit()).isEqualTo(100);
+    }
+
+    @Test
+    void staysWithinTheBounds() {
+        limit = start(10, 10, 11);
+        interval(lookup, 100, LOOKUP_MICROS);
+        interval(lookup, 100, LOOKUP_MICROS * 10);
+        assertThat(limit.getLimit()).isEqualTo(10);
+
+        saturate();
+        interval(lookup, 100, LOOKUP_MICROS);
+        saturate();
+        interval(lookup, 100, LOOKUP_MICROS);
+        assertThat(limit.getLimit()).isEqualTo(11);
+    }
+
+    @Test
+    void acceptsALastingSlowdownOnceTheBaselineHasDrifted() {
+        limit = start(1000, 1, 1000);
+        interval(lookup, 100, LOOKUP_MICROS);
+
+        // the baseline moves by a hundredth of the difference per interval, after about 30 intervals
+        // the queries are no longer more than twice as slow as the baseline
+        for (int i = 0; i < 60; i++) {
+            interval(lookup, 100, LOOKUP_MICROS * 3);
+        }
+        int drifted = limit.getLimit();
+        interval(lookup, 100, LOOKUP_MICROS * 3);
+
+        assertThat(drifted).isBetween(2, 100);
+        assertThat(limit.getLimit()).isEqualTo(drifted);
+    }
+
+    private AdaptiveConcurrencyLimit start(int initialLimit, int minLimit, int maxLimit) {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                2.0, Duration.ofMillis(20));
+        // adjusted by the test only
+        concurrencyLimit.start(Duration.ofDays(1));
+        return concurrencyLimit;
+    }
+
+    private void interval(Histogram histogram, int count, long micros) {
+        record(histogram, count, micros);
+        limit.adjust();
+    }
+
+    private void saturate() {
+        int acquired = 0;
+        while (limit.tryAcquire()) {
+            acquired++;
+        }
+        for (int i = 0; i < acquired; i++) {
+            limit.release();
+        }
+    }
+
+    private static void record(Histogram histogram, int count, long micros) {
+        for (int i = 0; i < count; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(micros));
+        }
+    }
+
+    private Histogram daoTimer(String method) {
+        return registry.histogram("dao_query_seconds", "DAO method execution time",
+                "dao", "AdaptiveConcurrencyLimitTest", "method", method);
+    }
+}
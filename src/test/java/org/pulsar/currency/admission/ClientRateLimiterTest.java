@@ -0,0 +1,88 @@
+package org.pulsar.currency.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClientRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsTheBurstAndThenAsksToWait() {
+        // one permit per second, nothing refills while the test runs
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 5, 16);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("client")).isZero();
+        }
+
+        long wait = limiter.tryAcquire("client");
+
+        assertThat(wait).isPositive();
+        assertThat(wait).isLessThanOrEqualTo(SECOND);
+    }
+
+    @Test
+    void refillsAtTheRate() throws InterruptedException {
+        // a permit every 100 ms
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 2, 16);
+        assertThat(limiter.tryAcquire("client")).isZero();
+        assertThat(limiter.tryAcquire("client")).isZero();
+        long wait = limiter.tryAcquire("client");
+        assertThat(wait).isBetween(1L, SECOND / 10);
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(limiter.tryAcquire("client")).isZero();
+        assertThat(limiter.tryAcquire("client")).isPositive();
+    }
+
+    @Test
+    void aRejectedRequestDoesntUseAPermit() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 16);
+        assertThat(limiter.tryAcquire("client")).isZero();
+
+        long first = limiter.tryAcquire("client");
+        long second = limiter.tryAcquire("client");
+
+        assertThat(second).isLessThanOrEqualTo(first);
+    }
+
+    @Test
+    void keepsClientsApart() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 16);
+        assertThat(limiter.tryAcquire("a")).isZero();
+
+        assertThat(limiter.tryAcquire("a")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+    }
+
+    @Test
+    void clientsOnTheSameStripeShareItsBudget() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 1024);
+        // "Aa" and "BB" have the same hash code
+        assertThat(limiter.tryAcquire("Aa")).isZero();
+
+        assertThat(limiter.tryAcquire("BB")).isPositive();
+    }
+
+    @Test
+    void roundsTheStripesUpToAPowerOfTwo() {
+        // 3 stripes become 4: "a" and "e" (hash codes 97 and 101) land on the same one, "b" (98) doesn't
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 3);
+        assertThat(limiter.tryAcquire("a")).isZero();
+
+        assertThat(limiter.tryAcquire("e")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThatThrownBy(() -> new ClientRateLimiter(0, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ClientRateLimiter(1, 0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ClientRateLimiter(1, 1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
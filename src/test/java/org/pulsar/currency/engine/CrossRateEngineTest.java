@@ -0,0 +1,181 @@
+package org.pulsar.currency.engine;
+
+import org.junit.jupiter.api.Test;
+import org.pulsar.currency.cache.ExchangeRateSnapshot;
+import org.pulsar.currency.model.Currency;
+import org.pulsar.currency.model.ExchangeRate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrossRateEngineTest {
+
+    private final Map<String, Currency> currencies = new HashMap<>();
+
+    @Test
+    void findsPairsWhoseCodesCantBePacked() {
+        CrossRateEngine engine = engine(List.of("USD"),
+                rate("USD", "XB1", "2"),
+                rate("usd", "USD", "1"),
+                rate("USD", "EUR", "0.5"));
+
+        assertThat(engine.find("USD", "XB1").map(CrossRate::rate)).contains(new BigDecimal("2"));
+        assertThat(engine.find("XB1", "USD").map(CrossRate::rate)).contains(new BigDecimal("0.500000"));
+        assertThat(engine.find("XB1", "EUR").map(CrossRate::rate)).contains(new BigDecimal("0.250000"));
+        assertThat(engine.find("usd", "XB1").map(CrossRate::rate)).contains(new BigDecimal("2.000000"));
+        assertThat(engine.find("XB1", "XB2")).isEmpty();
+    }
+
+    @Test
+    void returnsDirectRatesAsStoredAndInvertsThemToSixDigits() {
+        CrossRateEngine engine = engine(List.of("USD"), rate("USD", "RUB", "90.5"));
+
+        assertThat(engine.find("USD", "RUB").map(CrossRate::rate)).contains(new BigDecimal("90.5"));
+        assertThat(engine.find("RUB", "USD").map(CrossRate::rate)).contains(new BigDecimal("0.011050"));
+        assertThat(engine.find("USD", "EUR")).isEmpty();
+    }
+
+    @Test
+    void prefersFewerHopsOverPivots() {
+        CrossRateEngine engine = engine(List.of("USD"),
+                rate("EUR", "USD", "1.1"),
+                rate("USD", "RUB", "90"),
+                rate("EUR", "RUB", "100"));
+
+        assertThat(engine.find("EUR", "RUB").map(CrossRate::hops)).contains(1);
+    }
+
+    @Test
+    void goesThroughTheFirstListedPivot() {
+        ExchangeRate[] rates = {
+                rate("EUR", "GBP", "0.85"),
+                rate("GBP", "RUB", "110"),
+                rate("EUR", "USD", "1.1"),
+                rate("USD", "RUB", "90")};
+
+        assertThat(engine(List.of("USD", "GBP"), rates).find("EUR", "RUB").map(this::path)).contains("EUR>USD>RUB");
+        assertThat(engine(List.of("GBP", "USD"), rates).find("EUR", "RUB").map(this::path)).contains("EUR>GBP>RUB");
+    }
+
+    @Test
+    void prefersFewerInvertedLegsBetweenEqualPaths() {
+        CrossRateEngine engine = engine(List.of(),
+                rate("EUR", "GBP", "0.85"),
+                rate("JPY", "GBP", "0.005"),
+                rate("EUR", "CHF", "0.95"),
+                rate("CHF", "JPY", "170"));
+
+        assertThat(engine.find("EUR", "JPY").map(this::path)).contains("EUR>CHF>JPY");
+    }
+
+    @Test
+    void multipliesMultiHopPathsAndRoundsOnce() {
+        CrossRateEngine engine = engine(List.of("USD"),
+                rate("AAA", "BBB", "1.5"),
+                rate("BBB", "CCC", "3"),
+                rate("DDD", "CCC", "7"));
+
+        CrossRate crossRate = engine.find("AAA", "DDD").orElseThrow();
+        BigDecimal expected = new BigDecimal("1.5").multiply(new BigDecimal("3"))
+                .divide(new BigDecimal("7"), MathContext.DECIMAL128)
+                .setScale(6, RoundingMode.HALF_UP);
+
+        assertThat(path(crossRate)).isEqualTo("AAA>BBB>CCC>DDD");
+        assertThat(crossRate.rate()).isEqualTo(expected);
+        assertThat(crossRate.unscaledRate()).isEqualTo(expected.unscaledValue().longValueExact());
+        assertThat(crossRate.rateScale()).isEqualTo(6);
+    }
+
+    @Test
+    void updatesRatesIncrementallyLikeARebuild() {
+        List<ExchangeRate> rates = List.of(
+                rate("EUR", "USD", "1.1"),
+                rate("USD", "RUB", "90"),
+                rate("GBP", "USD", "1.3"),
+                rate("JPY", "EUR", "0.006"),
+                rate("CHF", "JPY", "170"));
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.of(rates);
+        CrossRateEngine incremental = new CrossRateEngine(List.of("USD"));
+        incremental.onReload(snapshot);
+
+        ExchangeRate usdRub = rate("USD", "RUB", "95.25");
+        snapshot = snapshot.with(usdRub);
+        incremental.onUpdate(snapshot, usdRub, false);
+        assertSameRoutes(incremental, snapshot);
+
+        // routes through both rates of a batch, e.g. CHF > JPY > EUR, get both of them
+        ExchangeRate jpyEur = rate("JPY", "EUR", "0.0061");
+        ExchangeRate chfJpy = rate("CHF", "JPY", "171.5");
+        snapshot = snapshot.with(jpyEur).with(chfJpy);
+        incremental.onUpdateAll(snapshot, List.of(jpyEur, chfJpy), false);
+        assertSameRoutes(incremental, snapshot);
+    }
+
+    @Test
+    void rebuildsWhenAPairIsAdded() {
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.of(List.of(rate("EUR", "USD", "1.1")));
+        CrossRateEngine engine = new CrossRateEngine(List.of("USD"));
+        engine.onReload(snapshot);
+
+        ExchangeRate usdRub = rate("USD", "RUB", "90");
+        snapshot = snapshot.with(usdRub);
+        engine.onUpdate(snapshot, usdRub, true);
+        assertThat(engine.find("EUR", "RUB").map(this::path)).contains("EUR>USD>RUB");
+
+        ExchangeRate gbpUsd = rate("GBP", "USD", "1.3");
+        snapshot = snapshot.with(gbpUsd);
+        engine.onUpdateAll(snapshot, List.of(gbpUsd), true);
+        assertThat(engine.find("GBP", "RUB").map(this::path)).contains("GBP>USD>RUB");
+        assertSameRoutes(engine, snapshot);
+    }
+
+    private void assertSameRoutes(CrossRateEngine engine, ExchangeRateSnapshot snapshot) {
+        CrossRateEngine rebuilt = new CrossRateEngine(engine.getPivots());
+        rebuilt.onReload(snapshot);
+
+        for (String baseCode : currencies.keySet()) {
+            for (String targetCode : currencies.keySet()) {
+                assertThat(engine.find(baseCode, targetCode)).isEqualTo(rebuilt.find(baseCode, targetCode));
+            }
+        }
+    }
+
+    private String path(CrossRate crossRate) {
+        StringBuilder path = new StringBuilder(crossRate.baseCurrency().getCode());
+        for (Leg leg : crossRate.legs()) {
+            path.append('>').append(leg.to().getCode());
+        }
+        return path.toString();
+    }
+
+    private CrossRateEngine engine(List<String> pivots, ExchangeRate... exchangeRates) {
+        CrossRateEngine engine = new CrossRateEngine(pivots);
+        engine.onReload(ExchangeRateSnapshot.of(List.of(exchangeRates)));
+        return engine;
+    }
+
+    private ExchangeRate rate(String baseCode, String targetCode, String rate) {
+        return ExchangeRate.builder()
+                .id(UUID.randomUUID())
+                .baseCurrency(currency(baseCode))
+                .targetCurrency(currency(targetCode))
+                .rate(new BigDecimal(rate))
+                .build();
+    }
+
+    private Currency currency(String code) {
+        return currencies.computeIfAbsent(code, key -> Currency.builder()
+                .id(UUID.randomUUID())
+                .code(key)
+                .fullName(key)
+                .sign(key)
+                .build());
+    }
+}
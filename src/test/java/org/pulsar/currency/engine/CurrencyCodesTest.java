@@ -0,0 +1,42 @@
+package org.pulsar.currency.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CurrencyCodesTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"AAA", "USD", "EUR", "ZZZ"})
+    void packsAndUnpacks(String code) {
+        int packed = CurrencyCodes.pack(code);
+
+        assertThat(packed).isBetween(0, (1 << 15) - 1);
+        assertThat(CurrencyCodes.unpack(packed)).isEqualTo(code);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "US", "USDT", "usd", "Usd", "US1", "U-D", "ÄBC", "[AA", "@AA"})
+    void rejectsCodesThatArentThreeLetters(String code) {
+        assertThat(CurrencyCodes.pack(code)).isEqualTo(CurrencyCodes.INVALID);
+        assertThat(CurrencyCodes.pairKey(code, "USD")).isEqualTo(CurrencyCodes.INVALID);
+        assertThat(CurrencyCodes.pairKey("USD", code)).isEqualTo(CurrencyCodes.INVALID);
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThat(CurrencyCodes.pack(null)).isEqualTo(CurrencyCodes.INVALID);
+    }
+
+    @Test
+    void keysPairsByDirection() {
+        int usdEur = CurrencyCodes.pairKey("USD", "EUR");
+
+        assertThat(usdEur).isEqualTo(CurrencyCodes.pairKey(CurrencyCodes.pack("USD"), CurrencyCodes.pack("EUR")));
+        assertThat(usdEur).isNotEqualTo(CurrencyCodes.pairKey("EUR", "USD"));
+        assertThat(CurrencyCodes.pairKey("AAA", "AAA")).isEqualTo(0);
+        assertThat(CurrencyCodes.pairKey("ZZZ", "ZZZ")).isPositive();
+    }
+}
@@ -0,0 +1,44 @@
+package org.pulsar.currency.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FixedPointTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "7", "100", "0.5", "5.", ".5", "12.340", "000123.4500", "123456789012345678",
+            "0.00000000000000001", "99999999999999999.9"})
+    void parsesPlainDecimalsLikeBigDecimal(String value) {
+        long unscaled = FixedPoint.parseUnscaled(value);
+
+        assertThat(unscaled).isNotEqualTo(FixedPoint.INVALID);
+        assertThat(BigDecimal.valueOf(unscaled, FixedPoint.scaleOf(value))).isEqualTo(new BigDecimal(value));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", ".", "-5", "+5", "-0.5", "1e3", "1E-2", "1.2.3", "12,5", " 1", "0x10",
+            "1234567890123456789", "0.1234567890123456789"})
+    void rejectsEverythingElse(String value) {
+        assertThat(FixedPoint.parseUnscaled(value)).isEqualTo(FixedPoint.INVALID);
+    }
+
+    @Test
+    void multipliesWithinLong() {
+        assertThat(FixedPoint.multiply(15, 4)).isEqualTo(60);
+        assertThat(FixedPoint.multiply(0, Long.MAX_VALUE)).isEqualTo(0);
+        assertThat(FixedPoint.multiply(3_037_000_499L, 3_037_000_499L)).isEqualTo(3_037_000_499L * 3_037_000_499L);
+    }
+
+    @Test
+    void reportsOverflow() {
+        assertThat(FixedPoint.multiply(Long.MAX_VALUE, 2)).isEqualTo(FixedPoint.INVALID);
+        assertThat(FixedPoint.multiply(3_037_000_500L, 3_037_000_500L)).isEqualTo(FixedPoint.INVALID);
+        // the high half is zero, the product only overflows into the sign bit
+        assertThat(FixedPoint.multiply(1L << 32, 1L << 31)).isEqualTo(FixedPoint.INVALID);
+    }
+}
@@ -0,0 +1,91 @@
+package org.pulsar.currency.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PairIndexTest {
+
+    @Test
+    void findsEveryKeyOfAFullIndex() {
+        Random random = new Random(42);
+        for (int expectedSize = 1; expectedSize <= 300; expectedSize++) {
+            PairIndex index = new PairIndex(expectedSize);
+            Map<Integer, Integer> expected = new HashMap<>();
+            while (expected.size() < expectedSize) {
+                int key = random.nextInt(1 << 30);
+                expected.put(key, expected.size());
+                index.put(key, expected.get(key));
+            }
+
+            assertThat(index.size()).isEqualTo(expectedSize);
+            expected.forEach((key, value) -> assertThat(index.get(key)).isEqualTo(value));
+        }
+    }
+
+    @Test
+    void probesPastCollidingKeys() {
+        PairIndex index = new PairIndex(8);
+        // 8 expected keys get 16 slots
+        int capacity = 16;
+        // keys starting at the same slot, the last one, so the probe also wraps around
+        List<Integer> colliding = new ArrayList<>();
+        for (int key = 0; colliding.size() < 4; key++) {
+            if (index.indexOf(key) == capacity - 1) {
+                colliding.add(key);
+            }
+        }
+        for (int i = 0; i < colliding.size(); i++) {
+            index.put(colliding.get(i), i);
+        }
+
+        for (int i = 0; i < colliding.size(); i++) {
+            assertThat(index.get(colliding.get(i))).isEqualTo(i);
+        }
+        for (int key = 0; key < colliding.getLast(); key++) {
+            if (!colliding.contains(key)) {
+                assertThat(index.get(key)).isEqualTo(PairIndex.MISSING);
+            }
+        }
+    }
+
+    @Test
+    void returnsMissingForAbsentKeys() {
+        PairIndex index = new PairIndex(4);
+        index.put(0, 10);
+        index.put(CurrencyCodes.pairKey("ZZZ", "ZZZ"), 11);
+
+        assertThat(index.get(1)).isEqualTo(PairIndex.MISSING);
+        assertThat(index.get(CurrencyCodes.pairKey("USD", "EUR"))).isEqualTo(PairIndex.MISSING);
+        assertThat(new PairIndex(0).get(0)).isEqualTo(PairIndex.MISSING);
+    }
+
+    @Test
+    void replacesTheValueOfAnExistingKey() {
+        PairIndex index = new PairIndex(4);
+        index.put(7, 1);
+        index.put(7, 2);
+
+        assertThat(index.get(7)).isEqualTo(2);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void refusesMoreKeysThanHalfOfItsCapacity() {
+        // the index doesn't grow: 4 expected keys get 8 slots, at most half of them are filled
+        PairIndex index = new PairIndex(4);
+        for (int key = 0; key < 4; key++) {
+            index.put(key, key);
+        }
+
+        assertThatThrownBy(() -> index.put(4, 4)).isInstanceOf(IllegalStateException.class);
+        assertThat(index.get(4)).isEqualTo(PairIndex.MISSING);
+    }
+}
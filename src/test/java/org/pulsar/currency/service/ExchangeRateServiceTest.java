@@ -0,0 +1,96 @@
+package org.pulsar.currency.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.pulsar.currency.cache.ExchangeRateCache;
+import org.pulsar.currency.cache.NegativeCache;
+import org.pulsar.currency.dao.ExchangeRateDao;
+import org.pulsar.currency.dto.exchange.ExchangeResponse;
+import org.pulsar.currency.engine.CrossRate;
+import org.pulsar.currency.engine.CrossRateEngine;
+import org.pulsar.currency.engine.Leg;
+import org.pulsar.currency.mapper.CurrencyMapper;
+import org.pulsar.currency.mapper.ExchangeRateMapper;
+import org.pulsar.currency.model.Currency;
+import org.pulsar.currency.model.ExchangeRate;
+import org.pulsar.currency.validation.Validator;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ExchangeRateServiceTest {
+
+    private static final Currency USD = currency("USD");
+    private static final Currency EUR = currency("EUR");
+    private static final Currency RUB = currency("RUB");
+
+    private ExchangeRateService exchangeRateService;
+    private List<CrossRate> crossRates;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        CurrencyMapper currencyMapper = new CurrencyMapper();
+        exchangeRateService = new ExchangeRateService(mock(ExchangeRateDao.class),
+                mock(ExchangeRateCache.class),
+                mock(CrossRateEngine.class),
+                new ExchangeRateMapper(currencyMapper),
+                currencyMapper,
+                mock(Validator.class),
+                mock(Validator.class),
+                new DataVersion(),
+                mock(RateUpdatePipeline.class),
+                mock(NegativeCache.class));
+
+        ExchangeRate usdEur = rate(USD, EUR, "0.92");
+        ExchangeRate eurRub = rate(EUR, RUB, "37.9");
+        crossRates = List.of(
+                CrossRate.of(List.of(new Leg(usdEur, false))),
+                CrossRate.of(List.of(new Leg(rate(USD, RUB, "0.0123456789"), false))),
+                // inverted and multi-hop rates are rounded to 6 digits
+                CrossRate.of(List.of(new Leg(rate(RUB, USD, "3"), true))),
+                CrossRate.of(List.of(new Leg(usdEur, false), new Leg(eurRub, false))),
+                // a rate with a negative scale isn't kept in fixed point
+                CrossRate.of(List.of(new Leg(rate(EUR, USD, "1E+3"), false))));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "1", "100", "0.5", "5.", ".5", "12.340", "000123.4500", "0.000001",
+            "123456789012345678", "999999999999999999", "1234567890123456789", "12345678901234567890.5",
+            "1e3", "1E-2", "2.5E+1", "-5", "+5", "-0.5"})
+    void convertsLikeBigDecimal(String amount) {
+        for (CrossRate crossRate : crossRates) {
+            ExchangeResponse response = exchangeRateService.exchange(crossRate, amount);
+
+            BigDecimal expected = crossRate.rate().multiply(new BigDecimal(amount));
+            // BigDecimal.equals compares the scale as well
+            assertThat(response.convertedAmount()).isEqualTo(expected);
+            assertThat(response.convertedAmount().scale()).isEqualTo(expected.scale());
+            assertThat(response.amount()).isEqualTo(new BigDecimal(amount));
+            assertThat(response.rate()).isEqualTo(crossRate.rate());
+        }
+    }
+
+    private static Currency currency(String code) {
+        return Currency.builder()
+                .id(UUID.randomUUID())
+                .code(code)
+                .fullName(code)
+                .sign(code)
+                .build();
+    }
+
+    private static ExchangeRate rate(Currency base, Currency target, String rate) {
+        return ExchangeRate.builder()
+                .id(UUID.randomUUID())
+                .baseCurrency(base)
+                .targetCurrency(target)
+                .rate(new BigDecimal(rate))
+                .build();
+    }
+}